@@ -16,6 +16,7 @@ import java.util.InputMismatchException;
 import java.util.Objects;
 import java.net.MalformedURLException;
 import game.Game;
+import game.GameMove;
 
 
 //was used for diff polling paradigm, kept for ref
@@ -39,9 +40,11 @@ public class ClientMicroservice { //extends UnicastRemoteObject implements GameE
     private WordServer wordServer;
     //private CrosswordGameState CrosswordGameState;
     private CrissCrossPuzzleServer server;
-    private ReceiverInterface client; 
+    private ReceiverImpl client; 
     private ReceiverInterface receiver;
     private volatile Game game;
+    private final Object gameArrived = new Object(); // Notified when the receiver gets a game
+    private static final long GAME_WAIT_MS = 20_000;
     private static char[][] currentGrid;
 
     private Scanner scanner = new Scanner(System.in); // Scanner instance for user input
@@ -142,13 +145,31 @@ public class ClientMicroservice { //extends UnicastRemoteObject implements GameE
                         
                         
                         ReceiverImpl.registerGameHandler(updatedGame -> {
-                            this.game = updatedGame;
+                            boolean newGame = this.game == null || !this.game.getGameID().equals(updatedGame.getGameID());
+                            synchronized (gameArrived) {
+                                this.game = updatedGame;
+                                gameArrived.notifyAll();
+                            }
+                            if (newGame) {
+                                // Moves that came before the game are delivered here, so set the game first
+                                client.connectPeers(updatedGame.getGameID(), updatedGame.getNamesOfPlayers());
+                            }
                             if (state != GameState.INGAME) {
                                 state = GameState.INGAME;
                             }
                             System.out.println("\n[SYNC] Game updated by another player:");
                             game.displayGrid("player");
                         });
+
+                        ReceiverImpl.registerMoveHandler(move -> {
+                            Game current = this.game;
+                            if (current == null || !current.getGameID().equals(move.getGameID())) {
+                                return; // Not in this game (anymore)
+                            }
+                            current.applyMove(move);
+                            System.out.println("\n[SYNC] " + move.getPlayer() + " guessed '" + move.getGuess() + "':");
+                            current.displayGrid("player");
+                        });
                         
                         state = GameState.READY;
                         System.out.println("\nLogin successful! Welcome, " + name);
@@ -242,7 +263,10 @@ public class ClientMicroservice { //extends UnicastRemoteObject implements GameE
                     failFactor = scanner.nextInt();
 
                     System.out.print("Waiting for game");
-					game = server.startMultiplayer(name, players, failFactor);
+					game = null;
+					// Returns at once; the server pushes the game to every player's receiver
+					// when the lobby is full, guesses follow as moves
+					server.startMultiplayer(name, players, failFactor);
 					
 					state = GameState.INGAME;
 					
@@ -268,24 +292,19 @@ public class ClientMicroservice { //extends UnicastRemoteObject implements GameE
     private void handleInGame() throws RemoteException {
         
 
-        //////////////////// Dirty loop to wait for game ///////////////////
-        for (int i = 0; i < 200; i++) {
-            if (game != null) {
-                break; // Game has loaded, exit loop
-            }
-        
-            try {
-                Thread.sleep(100); // Wait a bit before retrying (200 * 100ms = ~20s max wait)
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt(); // Restore the interrupt flag
-                break;
-            }
+        awaitGame();
+
+        // Give up the lobby seat if the lobby has not filled; if it has, the game is
+        // already on its way, so wait for it once more
+        if (game == null && !leaveLobby()) {
+            awaitGame();
         }
-        
+
         // If game never loaded after waiting
         if (game == null) {
             System.out.println("Game failed to load. Returning to menu...");
             state = GameState.READY;
+            return;
         }
         System.out.println("\n===================================");
         System.out.println("       Welcome! You are now in-game");
@@ -332,6 +351,7 @@ public class ClientMicroservice { //extends UnicastRemoteObject implements GameE
                 //    server.exitGame(gameID);
                 //    game = null;
                 //}
+                leaveGame();
                 game = null; //exit game
             }
 
@@ -358,6 +378,7 @@ public class ClientMicroservice { //extends UnicastRemoteObject implements GameE
                             //    server.exitGame(gameID); //TODO idk?
                             //    game = null;
                             //}
+                            leaveGame();
                             game = null; //TODO new logic?
                         }
                         break;
@@ -395,7 +416,8 @@ public class ClientMicroservice { //extends UnicastRemoteObject implements GameE
                         //client.sendMessage(gameState.getPlayerNames(), name, input); //TODO resend+fix
                         //gameID = server.updateGuess(server.getGameState(gameID), input); //TODO replace logic
                         game.checkGuess(input,name);
-                        client.sendGame(game.getNamesOfPlayers(), name, game);
+                        client.sendMove(game.getNamesOfPlayers(), name,
+                            new GameMove(game.getGameID(), name, input, game.getLives(), game.getGameStatus()));
                         System.out.println("Updated Board:\n");
                         game.displayGrid("player");
                         break;
@@ -404,6 +426,46 @@ public class ClientMicroservice { //extends UnicastRemoteObject implements GameE
         }
     }
 
+    // Waits for the receiver to get the game; woken as soon as it arrives.
+    private void awaitGame() {
+        long deadline = System.currentTimeMillis() + GAME_WAIT_MS;
+        synchronized (gameArrived) {
+            long remaining = GAME_WAIT_MS;
+            while (game == null && remaining > 0) {
+                try {
+                    gameArrived.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt(); // Restore the interrupt flag
+                    break;
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+    }
+
+    // Takes this player out of the lobby it is waiting in; false if the game has started.
+    private boolean leaveLobby() {
+        try {
+            return server.leaveLobby(name);
+        } catch (RemoteException e) {
+            System.err.println("Could not leave lobby: " + e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Tells the receiver and the game server this player is done with the current game,
+     * so the receiver stops sending for it and the server can drop its move log.
+     */
+    private void leaveGame() {
+        client.leaveGame(game.getGameID());
+        try {
+            server.leaveGame(game.getGameID(), name);
+        } catch (RemoteException e) {
+            System.err.println("Could not leave game: " + e.getMessage());
+        }
+    }
+
     
     public int calculateScore(char[][] currentGrid, char[][] comparisonGrid) {
         int score = 0;
@@ -7,6 +7,7 @@ import java.rmi.*;
 import java.rmi.RemoteException;
 import java.util.List;
 import game.Game;
+import game.GameMove;
 
 public interface CrissCrossPuzzleServer extends Remote{
 
@@ -35,6 +36,10 @@ public interface CrissCrossPuzzleServer extends Remote{
     // Returns a game ID.
     Game startMultiplayer(String name, int numberOfPlayers, int gameLevel) throws RemoteException;
 
+    // Takes a player who has given up waiting out of their lobby, freeing the seat for
+    // someone else. Returns false if the lobby has already filled and the game started.
+    boolean leaveLobby(String name) throws RemoteException;
+
     // Joins an existing multiplayer game using its game ID.
     // When the lobby becomes full, the game logic is started.
 
@@ -48,4 +53,18 @@ public interface CrissCrossPuzzleServer extends Remote{
 
     // list current multiplayer lobbies that haven't started.
     List<GameLobbyInfo> listLobbies() throws RemoteException;
+
+    // Sequencer for multiplayer moves when players use -Dreceiver.ordering=sequencer.
+    // Numbers the move within its game and keeps it, so players that missed a move can
+    // fetch it again with getMovesSince. Moves for a game that has not started or is over
+    // are refused.
+    GameMove sequenceMove(GameMove move) throws RemoteException;
+    List<GameMove> getMovesSince(String gameID, int fromSequence) throws RemoteException;
+
+    // A player has stopped playing a multiplayer game (won, lost or quit); the game's move
+    // log is dropped once every player has.
+    void leaveGame(String gameID, String player) throws RemoteException;
+
+    // Server counters (word server lookups and failures, puzzle pool hits and misses), for monitoring.
+    String getServerStats() throws RemoteException;
 }
\ No newline at end of file
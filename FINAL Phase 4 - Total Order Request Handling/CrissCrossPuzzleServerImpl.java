@@ -4,7 +4,10 @@
  * in a distributed RMI system. */
 
 import java.net.*;
+import java.rmi.ConnectException;
+import java.rmi.ConnectIOException;
 import java.rmi.Naming;
+import java.rmi.NoSuchObjectException;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.*;
@@ -12,21 +15,82 @@ import java.io.*;
 import java.util.List;
 import java.rmi.NotBoundException;
 import java.net.MalformedURLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import game.Game;
+import game.GameMove;
+import game.WordPlacement;
 
 
 public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements CrissCrossPuzzleServer {
 
+    // Allowed number of words per puzzle
+    private static final int MIN_WORDS = 2;
+    private static final int MAX_WORDS = 10;
+
+    // Longest vertical word accepted, which caps the grid height
+    private static final int MAX_GRID_HEIGHT = 12;
+
+    private static final String WORD_SERVER_URL = "rmi://localhost/WordServer";
+    private static final int WORD_SERVER_ATTEMPTS = 3;
+    private static final long WORD_SERVER_BACKOFF_MS = 100; // Doubled after each failed attempt
+
+    // WordServer stub, looked up on first use and again only after a connection failure
+    private volatile WordServer wordServer;
+    private final Object wordServerLock = new Object();
+    private final AtomicLong wordServerLookups = new AtomicLong();
+    private final AtomicLong wordServerLookupNanos = new AtomicLong();
+    private final AtomicLong wordServerFailures = new AtomicLong();
+
+    // Ready-made puzzles per word count, refilled in the background
+    private final PuzzlePool puzzlePool;
+
+    // Move order and retransmit log for games using the sequencer
+    private final MoveSequencer moveSequencer = new MoveSequencer();
     
-    // Instead of storing game-specific data internally, we keep a map of game states.
-    private Map<String, CrosswordGameState> gameStates;
-    private Map<String, GameLobbyInfo> pendingLobbies = new HashMap<>();
+    // Instead of storing game-specific data internally, we keep a registry of game states.
+    // Work on one game holds that game's lock (-Dgame.registry.shards, default 16)
+    private final GameRegistry<CrosswordGameState> gameStates =
+        new GameRegistry<>(Integer.getInteger("game.registry.shards", GameRegistry.DEFAULT_SHARDS));
+    private Map<String, GameLobbyInfo> pendingLobbies = new ConcurrentHashMap<>();
+
+    // Open lobbies by settings ("players:level"), oldest first, so a join looks at one queue
+    private final Map<String, Queue<GameLobbyInfo>> openLobbies = new ConcurrentHashMap<>();
+
+    // Pushes started games to the players' receivers, off the RMI thread of the last joiner
+    private final ExecutorService lobbyNotifier = Executors.newFixedThreadPool(2, task -> {
+        Thread thread = new Thread(task, "lobby-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
 
 
     // Constructor
+    // Pool settings come from system properties, e.g. -Dpuzzle.pool.threads=2
+    // -Dpuzzle.pool.low=2 -Dpuzzle.pool.high=5, or per word count -Dpuzzle.pool.high.10=2
     public CrissCrossPuzzleServerImpl() throws RemoteException {
         super();
-        gameStates = new HashMap<>();
+
+        puzzlePool = new PuzzlePool(this::generatePuzzle, Integer.getInteger("puzzle.pool.threads", 2));
+        int low = Integer.getInteger("puzzle.pool.low", PuzzlePool.DEFAULT_LOW_WATERMARK);
+        int high = Integer.getInteger("puzzle.pool.high", PuzzlePool.DEFAULT_HIGH_WATERMARK);
+        for (int words = MIN_WORDS; words <= MAX_WORDS; words++) {
+            puzzlePool.setWatermarks(words,
+                Integer.getInteger("puzzle.pool.low." + words, low),
+                Integer.getInteger("puzzle.pool.high." + words, high));
+        }
+    }
+
+
+    // Uses the given word server instead of looking one up in the registry, e.g. a local
+    // WordServerImpl in GameBenchmark.
+    CrissCrossPuzzleServerImpl(WordServer wordServer) throws RemoteException {
+        this();
+        this.wordServer = wordServer;
     }
 
 
@@ -40,6 +104,11 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
         }
     }
 
+    // A remote call made through the cached WordServer stub
+    private interface WordServerCall<T> {
+        T call(WordServer wordServer) throws RemoteException;
+    }
+
     // Method to get the game state by gameID
     @Override
     public CrosswordGameState getGameState(String gameID) throws RemoteException {
@@ -56,9 +125,10 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
         return null;
     }
 
+    // The player grid is not copied; the game rebuilds it from the finished grid and the
+    // guesses, as every receiver of the game does.
     public static Game translateToGame(CrosswordGameState gameState) throws RemoteException {
         char[][] finishedGrid = gameState.getFinishedGrid();
-        char[][] playerGrid = gameState.getPlayerGrid();
 
         int gridHeight = finishedGrid.length;
         int gridWidth = finishedGrid[0].length; // assuming non-jagged grid
@@ -101,18 +171,6 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
             System.out.println("Finished grid is null!");
         }
 
-        playerGrid = gameState.getPlayerGrid();
-        if (playerGrid != null) {
-            System.out.println("Player grid size: " + playerGrid.length);
-            for (int i = 0; i < playerGrid.length; i++) {
-                System.out.println("Copying playerGrid row " + i);
-                game.setPlayerGridRow(i, playerGrid[i]);
-            }
-            System.out.println("Player grid set.");
-        } else {
-            System.out.println("Player grid is null!");
-        }
-
         char[] letters = gameState.getLettersGuessed();
         if (letters != null) {
             for (char letter : letters) {
@@ -120,6 +178,8 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
             }
         }
 
+        game.setWordPlacements(gameState.getWordPlacements());
+
         String[] words = gameState.getWordsGuessed();
         if (words != null) {
             for (String word : words) {
@@ -127,80 +187,134 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
             }
         }
 
+        if (finishedGrid != null) {
+            game.setPlayerGrid(game.updateUserGrid());
+            System.out.println("Player grid rebuilt from guesses.");
+        }
+
         System.out.println("Translation complete.");
         return game;
     }   
 
-   @Override
+    // Joins the oldest open lobby with these settings, or opens a new one, and returns at
+    // once; no thread waits while the lobby fills. The join that fills it starts the game
+    // and completes the lobby's future, which pushes the game to every player's receiver.
+    // Returns the game to the player whose join filled the lobby, null to the others.
+    // Lobbies are found through openLobbies and seats are taken with a compare-and-set, so
+    // concurrent joins take no lock and never overfill a lobby.
+    @Override
     public Game startMultiplayer(String name, int numberOfPlayers, int gameLevel) throws RemoteException {
-        String gameID = null;
-        boolean isNewLobby = true;
-    
-        // Check for an existing open lobby with the same settings
-        for (GameLobbyInfo lobby : pendingLobbies.values()) {
-            if (lobby.getExpectedPlayers() == numberOfPlayers && lobby.getGameLevel() == gameLevel
-                && lobby.getCurrentPlayers() < numberOfPlayers) {
-            
-                // Add the player to the existing game
-                gameID = lobby.getGameID();
-                CrosswordGameState gameState = gameStates.get(gameID);
-                gameState.addPlayer(name);
-                gameStates.put(gameID, gameState);
-                lobby.incrementPlayers();
-                isNewLobby = false;
-            
+        Queue<GameLobbyInfo> open = openLobbies.computeIfAbsent(lobbyKey(numberOfPlayers, gameLevel),
+            key -> new ConcurrentLinkedQueue<>());
+
+        // Take a seat in the oldest open lobby; full ones are dropped from the index on the way
+        GameLobbyInfo lobby;
+        while ((lobby = open.peek()) != null) {
+            int seat = lobby.reserveSlot();
+            if (seat > 0) {
+                if (lobby.isFull()) {
+                    open.remove(lobby); // Last seat taken
+                }
                 System.out.println("Joined lobby");
+                break;
             }
+            open.remove(lobby);
         }
 
         // If no existing lobby was found, create a new one
-        if (isNewLobby) {
-            gameID = UUID.randomUUID().toString();
+        if (lobby == null) {
+            String gameID = UUID.randomUUID().toString();
             CrosswordGameState gameState = new CrosswordGameStateImpl(gameID, numberOfPlayers, gameLevel);
-            gameState.addPlayer(name);
             gameState.setExpectedPlayers(numberOfPlayers);
             gameStates.put(gameID, gameState);
 
-            GameLobbyInfo newLobby = new GameLobbyInfo(gameID, name, numberOfPlayers, gameLevel);
-            pendingLobbies.put(gameID, newLobby);
+            lobby = new GameLobbyInfo(gameID, name, numberOfPlayers, gameLevel);
+            lobby.getStarted().thenAcceptAsync(this::pushGameStart, lobbyNotifier);
+            pendingLobbies.put(gameID, lobby);
+            if (!lobby.isFull()) {
+                open.add(lobby);
+            }
 
             System.out.println("Created a new lobby. Waiting for more players...");
         }
 
-        // Keep waiting in the lobby until it's full or the player exits
-        while (true) {  // Keep looping until game starts or player exits
-            GameLobbyInfo lobby = pendingLobbies.get(gameID);
+        // Add the player to the game
+        gameStates.withGame(lobby.getGameID(), gameState -> {
+            gameState.addPlayer(name);
+            return null;
+        });
+        if (!lobby.playerJoined()) {
+            return null;
+        }
+        pendingLobbies.remove(lobby.getGameID());
 
-            // If all players have joined, start the game
-            if (lobby.getCurrentPlayers() == numberOfPlayers) {
-                System.out.println("All players have joined! Starting game...");
+        // If all players have joined, start the game
+        System.out.println("All players have joined! Starting game...");
+        try {
+            // The host moves first, or the next player if the host left the lobby
+            String gameID = startGame(getActivePlayer(lobby.getGameID()), numberOfPlayers, gameLevel, lobby.getGameID());
+            Game game = translateToGame(getGameState(gameID));
+            game.displayGrid("finished");
+            startSequencing(gameID, game.getNamesOfPlayers());
+            lobby.getStarted().complete(game);
+            return game;
+        } catch (RemoteException | RuntimeException e) {
+            lobby.getStarted().completeExceptionally(e);
+            throw e;
+        }
+    }
 
-                // Start the game using startGame()
-                if(pendingLobbies.get(gameID).getHostName().equals(name)) {
-                    gameID = startGame(name, numberOfPlayers, gameLevel, gameID);
-                }
-                else {
-                    return null;
-                }
-                
-                System.out.println("Got Here");
-                Game game = translateToGame(getGameState(gameID));
-                game.displayGrid("finished");
-                return game;
+    // Gives up a player's seat in a lobby that has not started. The player leaves the game
+    // before the seat is freed, so a player who takes the seat cannot start a game that
+    // still lists them. The lobby is offered to joining players again if it had filled.
+    @Override
+    public boolean leaveLobby(String name) throws RemoteException {
+        for (GameLobbyInfo lobby : pendingLobbies.values()) {
+            Boolean seated = gameStates.withGame(lobby.getGameID(),
+                gameState -> Arrays.asList(gameState.getPlayerNames()).contains(name));
+            if (seated == null || !seated) continue;
+
+            if (!lobby.playerLeft()) {
+                return false; // The game is starting
             }
-            try {
-                Thread.sleep(3000); // Wait 3 seconds before checking again
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+            gameStates.withGame(lobby.getGameID(), gameState -> {
+                gameState.removePlayer(name);
+                return null;
+            });
+            lobby.decrementPlayers();
+            Queue<GameLobbyInfo> open = openLobbies.computeIfAbsent(
+                lobbyKey(lobby.getExpectedPlayers(), lobby.getGameLevel()), key -> new ConcurrentLinkedQueue<>());
+            if (!open.contains(lobby)) {
+                open.add(lobby);
             }
+            System.out.println(name + " left lobby " + lobby.getGameID());
+            return true;
         }
+        return false;
+    }
 
+    private static String lobbyKey(int numberOfPlayers, int gameLevel) {
+        return numberOfPlayers + ":" + gameLevel;
+    }
+
+    // Sends a started game to the receiver of every player in it.
+    private void pushGameStart(Game game) {
+        for (String player : game.getNamesOfPlayers()) {
+            try {
+                ReceiverInterface receiver = (ReceiverInterface) Naming.lookup("rmi://localhost/ReceiverInterface/" + player);
+                receiver.receiveGameStart(game);
+            } catch (Exception e) {
+                System.err.println("Could not send game " + game.getGameID() + " to " + player + ": " + e.getMessage());
+            }
+        }
     }
 
     @Override
     public void updateActivePlayer(String gameID) throws RemoteException {
-        CrosswordGameState gameState = gameStates.get(gameID);
-        gameState.nextActivePlayer();
+        gameStates.withGame(gameID, gameState -> {
+            gameState.nextActivePlayer();
+            return null;
+        });
     }
 
     @Override
@@ -220,9 +334,10 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
 
     @Override
     public void updatePlayerScore(String gameID, String playerName, int points) throws RemoteException{
-        CrosswordGameState gameState = gameStates.get(gameID);
-        
-        gameState.setPlayerScore(playerName, points);
+        gameStates.withGame(gameID, gameState -> {
+            gameState.setPlayerScore(playerName, points);
+            return null;
+        });
     }
 
     @Override
@@ -253,85 +368,112 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
             return "FAIL";
         }
 
-        CrosswordGameState gameState;
-
         //If game exists and need to restart
         if (gameID == null) {
             // Generate a unique game ID
-            gameID = UUID.randomUUID().toString();
-
-            //create a new game state
-            gameState = new CrosswordGameStateImpl(gameID, numberOfWords, failedAttemptFactor);
+            String newID = UUID.randomUUID().toString();
 
-            gameState.addPlayer(player);
+            //create and store a new game state
+            CrosswordGameState created = gameStates.createIfAbsent(newID,
+                () -> new CrosswordGameStateImpl(newID, numberOfWords, failedAttemptFactor));
+            created.addPlayer(player);
+            gameID = newID;
+        }
 
-            // Store game state
-            gameStates.put(gameID, gameState);
-            
-        } else {
-            // Retrieve existing game state
-            gameState = gameStates.get(gameID);
+        // Set up the puzzle holding the game's lock
+        String startedID = gameStates.withGame(gameID, gameState -> setUpGame(gameState, player, numberOfWords, failedAttemptFactor));
+        if (startedID == null) {
+            System.out.println("Game with ID " + gameID + " not found.");
+            return "FAIL";
         }
+        return startedID;
+    }
 
+    private String setUpGame(CrosswordGameState gameState, String player, int numberOfWords, int failedAttemptFactor) throws RemoteException {
         gameState.setActivePlayer(player); 
 
+        // Take a ready-made puzzle (generated now if none is in stock)
+        Puzzle puzzle = puzzlePool.take(numberOfWords);
+        for (int i = 0; i < puzzle.getNumWords(); i++) {
+            gameState.setGameWords(i, puzzle.getWords()[i]);
+        }
+        gameState.setFinishedGrid(puzzle.getFinishedGrid());
+        gameState.setPlayerGrid(puzzle.getMaskedGrid());
+        gameState.setWordPlacements(puzzle.getPlacements());
+
+        // Determine Faults count
+        gameState.setLives(failedAttemptFactor * puzzle.getLetterCount());
+        System.out.println("Fault counter: " + gameState.getLives() + "\n");
+
+        // Print grids for debugging
+        printGrid(gameState.getFinishedGrid());
+        System.out.println();
+        printGrid(gameState.getPlayerGrid());
+
+        gameState.setGameStatus("In-progress");
+
+        return gameState.getGameID();
+    }
+    
+
+    /*
+        Generates a new puzzle with the given number of words
+        Fetches the words from the word server and builds the finished and masked grids
+        Called by the puzzle pool, usually on one of its background threads
+    */
+    public Puzzle generatePuzzle(int numberOfWords) {
+        return generatePuzzle(numberOfWords, ThreadLocalRandom.current().nextLong());
+    }
+
+    /*
+        Generates the puzzle for a seed
+        Every random choice (word picks and crossing indexes) comes from the seed, so the
+        same seed and word list always give the same grid
+    */
+    public Puzzle generatePuzzle(int numberOfWords, long seed) {
+        Random random = new Random(seed);
+        String[] words = new String[numberOfWords];
+
         // Fetch the vertical word from the word server
-        String vertWord = fetchVerticalWord(numberOfWords);
-        gameState.setGameWords(0, vertWord);
+        String vertWord = fetchVerticalWord(numberOfWords, random.nextLong());
+        words[0] = vertWord;
         System.out.println("\nVertical Word: " + vertWord);
 
         // Select random indexes for vertical-horizontal crossing
-        int[] vertCrossIndex = getRandomIndexes(vertWord, numberOfWords - 1);
+        int[] vertCrossIndex = getRandomIndexes(vertWord, numberOfWords - 1, random);
         String[] crossingValues = getValuesAtRandomIndexes(vertWord, vertCrossIndex);
 
-        // Fetch the horizontal words
-        String[] horizWords = fetchHorizontalWords(vertWord, crossingValues, numberOfWords - 1);
-        for (int i = 0; i < horizWords.length; i++) {
-            gameState.setGameWords(i + 1, horizWords[i]);
-        }
+        // Fetch all horizontal words in one call
+        String[] horizWords = fetchHorizontalWords(crossingValues, random.nextLong());
+        System.arraycopy(horizWords, 0, words, 1, horizWords.length);
+
+        // Create and mask the grid, noting where each word was placed
+        Map<String, List<WordPlacement>> placements = new HashMap<>();
+        char[][] finishedGrid = layoutGrid(vertWord, vertCrossIndex, horizWords, placements);
+        char[][] maskedGrid = maskGrid(finishedGrid);
+
+        return new Puzzle(seed, words, finishedGrid, maskedGrid, countLetters(maskedGrid), placements);
+    }
 
+    // Lays out the finished grid once the words and the vertical crossing indexes are known
+    char[][] layoutGrid(String vertWord, int[] vertCrossIndex, String[] horizWords, Map<String, List<WordPlacement>> placements) {
         // Determine the horizontal cross indices
         int[] horizCrossIndex = determineCrossovers(vertWord, vertCrossIndex, horizWords);
 
         // Determine the grid dimensions
         GridDimensions gridX = getGridDimensions(horizWords, horizCrossIndex);
-        int gridY = vertWord.length();
 
         // Adjust horizontal cross indices
         adjustCrossovers(horizCrossIndex, gridX.verticalX);
 
-        // Create and mask the grid
-        gameState.setFinishedGrid(createGrid(vertWord, gridX, horizWords, vertCrossIndex, horizCrossIndex));
-        gameState.setPlayerGrid(maskGrid(gameState.getFinishedGrid()));
-
-        // Determine Faults count
-        int numLetters = countLetters(gameState.getPlayerGrid());
-        gameState.setLives(failedAttemptFactor * numLetters);
-        System.out.println("Fault counter: " + gameState.getLives() + "\n");
-
-        // Print grids for debugging
-        printGrid(gameState.getFinishedGrid());
-        System.out.println();
-        printGrid(gameState.getPlayerGrid());
-
-        if (gameStates.containsKey(gameID)) {  
-            gameStates.get(gameID).setGameStatus("In-progress");
-        }
-
-        gameStates.put(gameState.getGameID(), gameState);
-        
-
-        return gameState.getGameID();
+        return createGrid(vertWord, gridX, horizWords, vertCrossIndex, horizCrossIndex, placements);
     }
     
 
     @Override
     public String restartGame(String gameID) throws RemoteException {
-        // Retrieve the game state using gameID
-        CrosswordGameState gameState = gameStates.get(gameID);
-        
-        // Check if the game exists
-        if (gameState != null) {
+        // Reset the game holding its lock; null if the game doesn't exist
+        String restarted = gameStates.withGame(gameID, gameState -> {
             // Retrieve existing game details
             String[] players = gameState.getPlayerNames();
             int numWords = gameState.getNumWords();
@@ -355,10 +497,13 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
             
             // Return a success message
             return gameID;
-        } else {
+        });
+
+        if (restarted == null) {
             // If the game doesn't exist
             return "Game with ID " + gameID + " not found.";
         }
+        return restarted;
     }
 
     @Override
@@ -377,6 +522,13 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
     */
    @Override
     public String updateGuess(CrosswordGameState gameState, String guess) throws RemoteException {
+        // Apply the guess to the registered game holding its lock; a game that is no longer
+        // registered (finished or exited) is updated as given but not registered again
+        String updated = gameStates.withGame(gameState.getGameID(), registered -> applyGuess(registered, guess));
+        return (updated != null) ? updated : applyGuess(gameState, guess);
+    }
+
+    private String applyGuess(CrosswordGameState gameState, String guess) throws RemoteException {
         System.out.println("\nUpdating guess: " + guess);
 
         gameState.setLives((gameState.getLives()) - 1);
@@ -404,13 +556,17 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
             System.out.print("\nGAME LOST\n");
         }
 
-        gameStates.put(gameState.getGameID(), gameState);
-
         return gameState.getGameID();
     }
 
     @Override
     public char[][] checkGuess(CrosswordGameState gameState, String guess) throws RemoteException {
+        // The guess is added and taken back again; hold the game's lock meanwhile
+        char[][] grid = gameStates.withGame(gameState.getGameID(), registered -> previewGuess(registered, guess));
+        return (grid != null) ? grid : previewGuess(gameState, guess);
+    }
+
+    private char[][] previewGuess(CrosswordGameState gameState, String guess) throws RemoteException {
         System.out.println("\nChecking guess: " + guess);
         char guessedChar;
         String guessedWord = guess.toUpperCase();
@@ -441,36 +597,97 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
     }
 
 
-    private String sendToWordServerRMI(int length, String command, String letter) throws RemoteException {
-        try {
-            // Look up the WordServer object from the RMI registry
-            WordServer wordServer = (WordServer) Naming.lookup("rmi://localhost/WordServer");
-            String returnedWord;
-
-            if (command == null) {
-                // Ensure length is not null before calling the method
-                if (length <= 0) {
-                    throw new IllegalArgumentException("Length parameter must be greater than 0.");
+    /*
+        Runs a call against the cached WordServer stub
+        On a connection failure the stub is dropped and the call retried with a fresh lookup,
+        waiting a little longer before each attempt. Errors raised by the word server itself
+        (e.g. no matching word) are passed straight back.
+    */
+    private <T> T callWordServer(WordServerCall<T> call) throws RemoteException {
+        long backoff = WORD_SERVER_BACKOFF_MS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call(getWordServer());
+            } catch (ConnectException | ConnectIOException | NoSuchObjectException e) {
+                wordServer = null;
+                wordServerFailures.incrementAndGet();
+                System.out.println("WordServer connection failed (attempt " + attempt + "): " + e.getMessage());
+
+                if (attempt >= WORD_SERVER_ATTEMPTS) {
+                    throw new RemoteException("WordServer unavailable after " + attempt + " attempts.", e);
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new RemoteException("Interrupted while waiting to retry WordServer.", ie);
                 }
+                backoff *= 2;
+            }
+        }
+    }
 
-                returnedWord =  wordServer.getRandomVertWord(length);
-                return returnedWord;
-            } else {
-                returnedWord = wordServer.getRandomWord(command, letter);
-                return returnedWord;
+    // Returns the cached WordServer stub, looking it up from the RMI registry if needed
+    private WordServer getWordServer() throws RemoteException {
+        WordServer stub = wordServer;
+        if (stub != null) {
+            return stub;
+        }
+        synchronized (wordServerLock) {
+            if (wordServer == null) {
+                long start = System.nanoTime();
+                try {
+                    wordServer = (WordServer) Naming.lookup(WORD_SERVER_URL);
+                } catch (NotBoundException e) {
+                    // Not registered (yet), retried like a connection failure
+                    throw new ConnectException("WordServer is not bound.", e);
+                } catch (MalformedURLException e) {
+                    throw new RemoteException("Failed to connect to WordServer via RMI.", e);
+                } finally {
+                    wordServerLookups.incrementAndGet();
+                    wordServerLookupNanos.addAndGet(System.nanoTime() - start);
+                }
             }
+            return wordServer;
+        }
+    }
 
-        } catch (NotBoundException | MalformedURLException e) {
-            throw new RemoteException("Failed to connect to WordServer via RMI.", e);
-        } catch (Exception e) {
-            throw new RemoteException("An unexpected error occurred while communicating with WordServer.", e);
+    // Opens the move log of a multiplayer game, so its moves can be sequenced.
+    void startSequencing(String gameID, String[] players) {
+        moveSequencer.startGame(gameID, players);
+    }
+
+    @Override
+    public GameMove sequenceMove(GameMove move) throws RemoteException {
+        GameMove sequenced = moveSequencer.sequence(move);
+        if (sequenced == null) {
+            throw new RemoteException("Game " + move.getGameID() + " is not being played");
         }
+        return sequenced;
+    }
+
+    @Override
+    public List<GameMove> getMovesSince(String gameID, int fromSequence) throws RemoteException {
+        return moveSequencer.movesSince(gameID, fromSequence);
+    }
+
+    @Override
+    public void leaveGame(String gameID, String player) throws RemoteException {
+        moveSequencer.playerLeft(gameID, player);
+    }
+
+    @Override
+    public String getServerStats() throws RemoteException {
+        long lookups = wordServerLookups.get();
+        double averageMs = lookups == 0 ? 0 : wordServerLookupNanos.get() / (lookups * 1_000_000.0);
+        return String.format("WordServer lookups: %d (avg %.2f ms), connection failures: %d%n",
+            lookups, averageMs, wordServerFailures.get()) + puzzlePool.getStats() + moveSequencer.getStats();
     }
 
 
     
     // Chooses random indices of given word
-    public int[] getRandomIndexes(String input, int n) {
+    public int[] getRandomIndexes(String input, int n, Random random) {
         // Create a list to store all possible indexes
         ArrayList<Integer> indices = new ArrayList<>();
 
@@ -480,7 +697,7 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
         }
 
         // Shuffle the list to randomize the order
-        Collections.shuffle(indices);
+        Collections.shuffle(indices, random);
 
         int[] randomIndexes = new int[n];
 
@@ -537,7 +754,9 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
 
 
 	// Function to create the grid
-    public char[][] createGrid(String vert_word, GridDimensions grid_x, String[] horiz_words, int[] vert_cross_index, int[] horiz_cross_index) {
+	// Records where each word goes in placements (word -> row, column, direction, length)
+    public char[][] createGrid(String vert_word, GridDimensions grid_x, String[] horiz_words, int[] vert_cross_index, int[] horiz_cross_index,
+                               Map<String, List<WordPlacement>> placements) {
     	int grid_y = vert_word.length();
     	int grid_x_max = grid_x.maxLength;
 
@@ -553,12 +772,14 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
     	for (int y = 0; y < vert_word.length(); y++) {
     	    grid[y][grid_x.verticalX] = Character.toUpperCase(vert_word.charAt(y));
     	}
+    	WordPlacement.add(placements, vert_word, new WordPlacement(0, grid_x.verticalX, false, vert_word.length()));
 
     	// Fill the horizontal words
     	for (int i = 0; i < horiz_words.length; i++) {
     	    for (int x = 0; x < horiz_words[i].length(); x++) {
     	        grid[vert_cross_index[i]][horiz_cross_index[i] + x] = Character.toUpperCase(horiz_words[i].charAt(x));
     	    }
+    	    WordPlacement.add(placements, horiz_words[i], new WordPlacement(vert_cross_index[i], horiz_cross_index[i], true, horiz_words[i].length()));
     	}
 
 			return grid;  // Return the generated 2D grid
@@ -611,16 +832,16 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
 
 	// Function to validate the number of words
     private boolean validateWordCount(int words) {
-        if(words <= 10 && (words != 0 && words != 1)) {
+        if(words >= MIN_WORDS && words <= MAX_WORDS) {
 			return true;
 		}
 		return false;
     }
 
     // Function to fetch the vertical word from the word server
-    private String fetchVerticalWord(int length) {
+    private String fetchVerticalWord(int length, long seed) {
         try {
-            String vert_word = sendToWordServerRMI(length, null, null);
+            String vert_word = callWordServer(words -> words.getRandomVertWord(length, MAX_GRID_HEIGHT, seed));
 
             if (vert_word == null) {
                 throw new RuntimeException("Error: Invalid response from word server for query");
@@ -634,28 +855,23 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
     }
 
 
-    // Function to fetch the horizontal words from word server
-    private String[] fetchHorizontalWords(String vertWord, String[] letters, int wordCount) {
-        String[] horiz_words = new String[wordCount];
+    // Function to fetch the horizontal words from word server, one per crossing letter, in a single call
+    private String[] fetchHorizontalWords(String[] letters, long seed) {
+        try {
+            String[] horiz_words = callWordServer(words -> words.getRandomWords("m", letters, seed));
 
-        for (int i = 0; i < wordCount; i++) {
-            try {
-                String command = "m";
-                String horiz_word = sendToWordServerRMI(0, command, letters[i]);
-
-                if (horiz_word == null) {
-                    throw new RuntimeException("Error: Invalid response from word server for query");
-               }
-
-                horiz_words[i] = horiz_word;
-                System.out.print("\nHorizontal Word: " + horiz_words[i]);
-            } catch (RemoteException e) {
-                // Handle the exception, e.g., log it or rethrow as a RuntimeException
-                throw new RuntimeException("Error occurred while fetching horizontal words", e);
+            if (horiz_words == null || horiz_words.length != letters.length) {
+                throw new RuntimeException("Error: Invalid response from word server for query");
             }
-        }
 
-        return horiz_words;
+            for (String horiz_word : horiz_words) {
+                System.out.print("\nHorizontal Word: " + horiz_word);
+            }
+            return horiz_words;
+        } catch (RemoteException e) {
+            // Handle the exception, e.g., log it or rethrow as a RuntimeException
+            throw new RuntimeException("Error occurred while fetching horizontal words", e);
+        }
     }
 
     // Function to determine horizontal cross indices
@@ -758,10 +974,19 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
     private void revealWords(CrosswordGameState gameState, char[][] grid, char[][] maskedGrid) throws RemoteException {
         int rows = grid.length;
         int cols = grid[0].length;
+        Map<String, List<WordPlacement>> placements = gameState.getWordPlacements();
 
         for (String word : gameState.getWordsGuessed()) {
             if (word == null || word.isEmpty()) continue; // Skip empty/null words
 
+            // Puzzles made by createGrid know where their words are
+            if (placements != null) {
+                for (WordPlacement placement : placements.getOrDefault(word, Collections.emptyList())) {
+                    placement.reveal(grid, maskedGrid);
+                }
+                continue;
+            }
+
             // Check horizontally (row)
             // Converts each row into a string and checks if the word exists
             for (int y = 0; y < rows; y++) {
@@ -817,17 +1042,21 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
     }
 
 
+    // Fills the puzzle pool for every word count in the background
+    public void fillPuzzlePool() {
+        for (int words = MIN_WORDS; words <= MAX_WORDS; words++) {
+            puzzlePool.fill(words);
+        }
+    }
+
     @Override
     public void endGame(String gameID) {
-        // Check if the game exists in the map
-        if (gameStates.containsKey(gameID)) {
-            // Optionally, perform any cleanup or notification here
-            CrosswordGameState gameState = gameStates.get(gameID);
+        moveSequencer.endGame(gameID);
+
+        // Remove the game state from the registry to end the game
+        if (gameStates.remove(gameID) != null) {
             System.out.println("Ending game with ID: " + gameID);
-        
-            // Remove the game state from the map to end the game
-            gameStates.remove(gameID);
-        
+
             // Optionally, notify that the game has ended
             System.out.println("Game " + gameID + " has been ended.");
         } else {
@@ -843,6 +1072,9 @@ public class CrissCrossPuzzleServerImpl extends UnicastRemoteObject implements C
             // Bind the server object to the RMI registry with a unique name
             Naming.rebind("CrissCrossPuzzleServer", server);
 
+            // Start generating puzzles so the first games don't wait
+            server.fillPuzzlePool();
+
             System.out.println("Game Server is running...");
         } catch (Exception e) {
             System.err.println("Error starting Game Server");
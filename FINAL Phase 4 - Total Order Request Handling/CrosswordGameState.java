@@ -6,6 +6,8 @@
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.util.List;
+import java.util.Map;
+import game.WordPlacement;
 
 public interface CrosswordGameState extends Remote {
     /** GAME IDENTIFICATION */
@@ -35,6 +37,8 @@ public interface CrosswordGameState extends Remote {
     void setGameWords(int position, String word) throws RemoteException;
     void setGameStatus(String status) throws RemoteException;
     String getGameStatus() throws RemoteException;
+    Map<String, List<WordPlacement>> getWordPlacements() throws RemoteException;
+    void setWordPlacements(Map<String, List<WordPlacement>> wordPlacements) throws RemoteException;
 
     /** GAME LIVES */
     int getLives() throws RemoteException;
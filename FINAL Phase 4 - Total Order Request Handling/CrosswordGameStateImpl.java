@@ -13,6 +13,7 @@ import java.rmi.RemoteException;
 import java.util.*;
 import java.io.*;
 import java.rmi.Naming;
+import game.WordPlacement;
 
 public class CrosswordGameStateImpl extends UnicastRemoteObject implements CrosswordGameState {
     private static final long serialVersionUID = 1L;
@@ -28,6 +29,7 @@ public class CrosswordGameStateImpl extends UnicastRemoteObject implements Cross
 	private String[] wordsGuessed;
     private char[][] finishedGrid;
     private char[][] playerGrid;
+    private Map<String, List<WordPlacement>> wordPlacements; // Upper-case word -> where it sits in finishedGrid
 	private int lettersGuessedCount = 0; // Tracks number of letters added
     private int wordsGuessedCount = 0;   // Tracks number of words added
 	private int maxlettersGuessed = 50;
@@ -321,6 +323,16 @@ public class CrosswordGameStateImpl extends UnicastRemoteObject implements Cross
         return playerGrid;
     }
     
+    @Override
+    public Map<String, List<WordPlacement>> getWordPlacements() {
+        return wordPlacements;
+    }
+
+    @Override
+    public void setWordPlacements(Map<String, List<WordPlacement>> wordPlacements) {
+        this.wordPlacements = wordPlacements;
+    }
+
     @Override
     public void setPlayerGrid(char[][] playerGrid) {
         this.playerGrid = playerGrid;
@@ -0,0 +1,181 @@
+/*
+ * DeliveryBenchmark
+ *
+ * Compares the total-order delivery used by ReceiverImpl (TotalOrderQueue) with the
+ * previous algorithm: a PriorityQueue and HashMap behind one lock, rescanning every sender
+ * for every message. One thread per sender adds messages with timestamps from a shared
+ * Lamport counter, so all senders contend for the queue at once, as RMI threads do.
+ * Every run also checks that messages came out in timestamp order.
+ *
+ *   java DeliveryBenchmark [messages]
+ * Options: -Dbenchmark.samples=<n> (default 5). Each result is the median of the samples,
+ * after one run of warm-up.
+ * */
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class DeliveryBenchmark {
+
+    private static final int SAMPLES = Integer.getInteger("benchmark.samples", 5);
+    private static final int[] SENDER_COUNTS = { 2, 8, 32, 128 };
+
+    // The delivery engine under test
+    private interface Delivery {
+        void expect(String sender);
+        void add(String sender, int timestamp, Message message);
+    }
+
+    private static class Message {
+        final String sender;
+        final int timestamp;
+
+        Message(String sender, int timestamp) {
+            this.sender = sender;
+            this.timestamp = timestamp;
+        }
+    }
+
+    // Checks delivery order and counts deliveries
+    private static class Checker implements Consumer<Message> {
+        int delivered;
+        Message last;
+
+        @Override
+        public void accept(Message message) {
+            if (last != null && (message.timestamp < last.timestamp
+                    || (message.timestamp == last.timestamp && message.sender.compareTo(last.sender) < 0))) {
+                throw new IllegalStateException("Delivered out of order: " + message.timestamp + " after " + last.timestamp);
+            }
+            last = message;
+            delivered++;
+        }
+    }
+
+    // ReceiverImpl's delivery before TotalOrderQueue, with the lock it needs to be thread-safe
+    private static class LegacyDelivery implements Delivery {
+        private final PriorityQueue<Message> queue = new PriorityQueue<>((a, b) -> {
+            int timeCompare = Integer.compare(a.timestamp, b.timestamp);
+            return (timeCompare != 0) ? timeCompare : a.sender.compareTo(b.sender);
+        });
+        private final Map<String, Integer> lastSeenTimestamps = new HashMap<>();
+        private final Consumer<Message> deliver;
+
+        LegacyDelivery(Consumer<Message> deliver) {
+            this.deliver = deliver;
+        }
+
+        @Override
+        public synchronized void expect(String sender) {
+            lastSeenTimestamps.putIfAbsent(sender, -1);
+        }
+
+        @Override
+        public synchronized void add(String sender, int timestamp, Message message) {
+            lastSeenTimestamps.put(sender, timestamp);
+            queue.add(message);
+
+            while (!queue.isEmpty()) {
+                Message head = queue.peek();
+                boolean safeToDeliver = true;
+                for (String other : lastSeenTimestamps.keySet()) {
+                    if (other.equals(head.sender)) continue;
+                    if (lastSeenTimestamps.getOrDefault(other, -1) <= head.timestamp) {
+                        safeToDeliver = false;
+                        break;
+                    }
+                }
+                if (!safeToDeliver) break;
+                deliver.accept(head);
+                queue.poll();
+            }
+        }
+    }
+
+    private static class QueueDelivery implements Delivery {
+        private final TotalOrderQueue<Message> queue;
+
+        QueueDelivery(Consumer<Message> deliver) {
+            this.queue = new TotalOrderQueue<>(deliver);
+        }
+
+        @Override
+        public void expect(String sender) {
+            queue.expect(sender);
+        }
+
+        @Override
+        public void add(String sender, int timestamp, Message message) {
+            queue.add(sender, timestamp, message);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        System.out.printf("%d messages per run, median of %d runs%n%n", messages, SAMPLES);
+        System.out.printf("%-8s %-16s %12s %14s%n", "senders", "delivery", "ms", "messages/s");
+        for (int senders : SENDER_COUNTS) {
+            report(senders, "legacy", messages, LegacyDelivery::new);
+            report(senders, "TotalOrderQueue", messages, QueueDelivery::new);
+        }
+        System.exit(0);
+    }
+
+    private static void report(int senders, String name, int messages,
+                               Function<Consumer<Message>, Delivery> factory) throws Exception {
+        run(senders, messages, factory); // Warm-up
+        double[] millis = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            millis[i] = run(senders, messages, factory);
+        }
+        Arrays.sort(millis);
+        double median = millis[SAMPLES / 2];
+        System.out.printf("%-8d %-16s %12.1f %14.0f%n", senders, name, median, messages / (median / 1000));
+    }
+
+    // Returns the time in ms for all senders to add their messages.
+    private static double run(int senders, int messages, Function<Consumer<Message>, Delivery> factory) throws Exception {
+        Checker checker = new Checker();
+        Delivery delivery = factory.apply(checker);
+        String[] names = new String[senders];
+        for (int i = 0; i < senders; i++) {
+            names[i] = "player" + i;
+            delivery.expect(names[i]);
+        }
+
+        AtomicInteger clock = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(senders);
+        List<Future<?>> done = new ArrayList<>();
+        int perSender = messages / senders;
+        for (String sender : names) {
+            done.add(threads.submit(() -> {
+                start.await();
+                for (int n = 0; n < perSender; n++) {
+                    int timestamp = clock.incrementAndGet();
+                    delivery.add(sender, timestamp, new Message(sender, timestamp));
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : done) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        threads.shutdown();
+
+        // Messages above the slowest sender's last timestamp stay queued, as they would
+        // until that player's next message
+        if (checker.delivered == 0) {
+            throw new IllegalStateException("Nothing was delivered");
+        }
+        return elapsed / 1e6;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * EditedWordIndex
+ *
+ * A WordLookup (WordIndex or MappedWordIndex) plus the words added and removed
+ * since it was built. Edits only copy the two small edit sets, so adding or removing
+ * a word never rebuilds the index; the edits are folded into a new index when the
+ * word log is compacted.
+ * Like WordIndex, an instance is never modified once created.
+ * */
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+public final class EditedWordIndex {
+
+    // Retries before giving up on picking around removed words
+    private static final int MAX_PICK_ATTEMPTS = 16;
+
+    private final WordLookup base;
+    private final Set<String> added;    // Words not in base
+    private final Set<String> removed;  // Words in base that were removed
+
+    public EditedWordIndex(WordLookup base) {
+        this(base, Collections.emptySet(), Collections.emptySet());
+    }
+
+    private EditedWordIndex(WordLookup base, Set<String> added, Set<String> removed) {
+        this.base = base;
+        this.added = added;
+        this.removed = removed;
+    }
+
+    public boolean contains(String word) {
+        return added.contains(word) || (!removed.contains(word) && base.contains(word));
+    }
+
+    public EditedWordIndex withAdded(String word) {
+        Set<String> newAdded = new HashSet<>(added);
+        Set<String> newRemoved = new HashSet<>(removed);
+        if (!newRemoved.remove(word)) {
+            newAdded.add(word);
+        }
+        return new EditedWordIndex(base, newAdded, newRemoved);
+    }
+
+    public EditedWordIndex withRemoved(String word) {
+        Set<String> newAdded = new HashSet<>(added);
+        Set<String> newRemoved = new HashSet<>(removed);
+        if (!newAdded.remove(word)) {
+            newRemoved.add(word);
+        }
+        return new EditedWordIndex(base, newAdded, newRemoved);
+    }
+
+    // Number of edits not yet folded into the base index.
+    public int editCount() {
+        return added.size() + removed.size();
+    }
+
+    // Returns every word, base order first and added words after.
+    public List<String> toList() {
+        List<String> words = base.toList();
+        if (!removed.isEmpty()) {
+            words.removeAll(removed);
+        }
+        words.addAll(added);
+        return words;
+    }
+
+    /**
+     * Picks a random word matching a getRandomWord query.
+     * @return the word, or null if nothing matches
+     */
+    public String randomMatching(String command, String key, Random random) {
+        if (editCount() == 0) {
+            return base.randomMatching(command, key, random);
+        }
+        int baseCount = base.countMatching(command, key);
+        List<String> extra = new ArrayList<>();
+        for (String word : added) {
+            if (WordLookup.matches(command, key, word)) extra.add(word);
+        }
+        return pick(baseCount, n -> base.getMatching(command, key, n), extra, random);
+    }
+
+    /**
+     * Picks a random word whose length is between minLength and maxLength (inclusive).
+     * @return the word, or null if no word has a length in that range
+     */
+    public String randomWithLength(int minLength, int maxLength, Random random) {
+        if (editCount() == 0) {
+            return base.randomWithLength(minLength, maxLength, random);
+        }
+        int baseCount = base.countWithLength(minLength, maxLength);
+        List<String> extra = new ArrayList<>();
+        for (String word : added) {
+            if (word.length() >= minLength && word.length() <= maxLength) extra.add(word);
+        }
+        return pick(baseCount, n -> base.getWithLength(minLength, maxLength, n), extra, random);
+    }
+
+    // Uniform pick over the base matches minus removed words, plus the extra (added) matches.
+    private String pick(int baseCount, IntFunction<String> baseMatch, List<String> extra, Random random) {
+        int total = baseCount + extra.size();
+        if (total == 0) return null;
+
+        for (int attempt = 0; attempt < MAX_PICK_ATTEMPTS; attempt++) {
+            int n = random.nextInt(total);
+            if (n >= baseCount) return extra.get(n - baseCount);
+
+            String word = baseMatch.apply(n);
+            if (!removed.contains(word)) return word;
+        }
+
+        // Nearly every match has been removed, so list the ones that are left
+        List<String> remaining = new ArrayList<>(extra);
+        for (int n = 0; n < baseCount; n++) {
+            String word = baseMatch.apply(n);
+            if (!removed.contains(word)) remaining.add(word);
+        }
+        return remaining.isEmpty() ? null : remaining.get(random.nextInt(remaining.size()));
+    }
+}
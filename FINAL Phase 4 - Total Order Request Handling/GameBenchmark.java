@@ -0,0 +1,292 @@
+/*
+ * GameBenchmark
+ *
+ * Timing harness for the game engine hot paths: guess handling in game.Game, the puzzle
+ * server's grid layout, masking and user grid update, word server lookups, and the size
+ * and cost of serializing a Game, in its own format and in default Java serialization of
+ * the same fields (LegacyGame, the format before Game was Externalizable). Each grid path is measured for every puzzle size from
+ * 2 to 10 words. Puzzles are generated from a fixed seed, so two runs on the same
+ * words.txt measure the same grids.
+ *
+ * Run from a directory with words.txt (and the classes on the classpath):
+ *   java GameBenchmark [minWords] [maxWords]
+ * Options: -Dbenchmark.seed=<n> (default 42), -Dbenchmark.sampleMs=<n> (default 200),
+ *          -Dbenchmark.samples=<n> (default 5)
+ * Each result is the median of the samples, after one sample of warm-up.
+ * */
+
+import java.io.*;
+import java.util.*;
+import game.Game;
+import game.GameMove;
+import game.WordPlacement;
+
+public class GameBenchmark {
+
+    private static final long SEED = Long.getLong("benchmark.seed", 42);
+    private static final long SAMPLE_NANOS = Long.getLong("benchmark.sampleMs", 200) * 1_000_000;
+    private static final int SAMPLES = Integer.getInteger("benchmark.samples", 5);
+    private static final int BATCH = 16; // Operations between clock reads
+
+    // Results are folded in here so the JIT cannot drop the measured work
+    private static int sink;
+
+    private static PrintStream out;
+
+    // Game's fields as they were sent before Game had its own format, for comparison
+    private static class LegacyGame implements Serializable {
+        String gameID;
+        String activePlayer;
+        int numWords;
+        int lives;
+        int totalLives;
+        String[] gameWords;
+        List<Character> lettersGuessed = new ArrayList<>();
+        List<String> wordsGuessed;
+        int guessedLetterMask;
+        char[][] finishedGrid;
+        char[][] playerGrid;
+        String gameStatus;
+        boolean multiplayer;
+        int expectedPlayers;
+        List<String> playerNames;
+        Map<String, List<WordPlacement>> wordPlacements;
+
+        // Game has no getter for its words; they are the puzzle's
+        LegacyGame(Game game, String[] gameWords) {
+            gameID = game.getGameID();
+            activePlayer = game.getActivePlayer();
+            numWords = game.getNumWords();
+            lives = game.getLives();
+            totalLives = game.getLives();
+            this.gameWords = gameWords;
+            for (char letter : game.getLettersGuessed()) {
+                lettersGuessed.add(letter);
+            }
+            wordsGuessed = new ArrayList<>(Arrays.asList(game.getWordsGuessed()));
+            finishedGrid = game.getFinishedGrid();
+            playerGrid = game.getPlayerGrid();
+            gameStatus = game.getGameStatus();
+            multiplayer = game.isMultiplayer();
+            expectedPlayers = game.getExpectedPlayers();
+            playerNames = new ArrayList<>(game.getPlayerNames());
+            wordPlacements = game.getWordPlacements();
+        }
+    }
+
+    // GameMove's fields as they were sent before it had its own format
+    private static class LegacyMove implements Serializable {
+        String gameID, player, guess, status;
+        int timestamp, sequence, lives;
+
+        LegacyMove(GameMove move) {
+            gameID = move.getGameID();
+            player = move.getPlayer();
+            guess = move.getGuess();
+            status = move.getStatus();
+            timestamp = move.getTimestamp();
+            sequence = move.getSequence();
+            lives = move.getLives();
+        }
+    }
+
+    // A benchmarked operation; may return a value for the sink
+    private interface Operation {
+        Object run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int minWords = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int maxWords = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        // The servers log every call; keep that out of the results
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        WordServerImpl wordServer = new WordServerImpl();
+        CrissCrossPuzzleServerImpl puzzleServer = new CrissCrossPuzzleServerImpl(wordServer);
+
+        out.printf("Seed %d, %d samples of %d ms%n%n", SEED, SAMPLES, SAMPLE_NANOS / 1_000_000);
+        benchmarkWordServer(wordServer);
+        benchmarkMove();
+        for (int words = minWords; words <= maxWords; words++) {
+            benchmarkPuzzle(wordServer, puzzleServer, words);
+        }
+
+        // The RMI objects keep the JVM alive
+        System.exit(sink == 42 ? 1 : 0);
+    }
+
+    private static void benchmarkWordServer(WordServerImpl wordServer) throws Exception {
+        out.println("WordServer lookups");
+        String word = wordServer.getRandomVertWord(5, 12, SEED);
+        String[] letters = { "a", "e", "i", "o", "r", "s", "t", "n", "l" };
+
+        measure("checkWord", () -> wordServer.checkWord(word));
+        measure("getRandomWord m (letter)", () -> wordServer.getRandomWord("m", "e"));
+        measure("getRandomWord m (substring)", () -> wordServer.getRandomWord("m", "ing"));
+        measure("getRandomWord f (prefix)", () -> wordServer.getRandomWord("f", "pre"));
+        measure("getRandomWord e (suffix)", () -> wordServer.getRandomWord("e", "ion"));
+        measure("getRandomVertWord 5-12", () -> wordServer.getRandomVertWord(5, 12));
+        measure("getRandomWords m x9", () -> wordServer.getRandomWords("m", letters));
+        out.println();
+    }
+
+    private static void benchmarkMove() throws Exception {
+        out.println("GameMove");
+        GameMove move = new GameMove(UUID.randomUUID().toString(), "player", "e", 5, "In-progress").stamped(42);
+        LegacyMove legacy = new LegacyMove(move);
+        out.printf("  %-30s %10d bytes (LegacyMove %d bytes)%n", "GameMove serialized size",
+            serialize(move).length, serialize(legacy).length);
+        byte[] serialized = serialize(move);
+        byte[] legacySerialized = serialize(legacy);
+        measure("GameMove serialize", () -> serialize(move));
+        measure("GameMove deserialize", () -> deserialize(serialized));
+        measure("LegacyMove serialize", () -> serialize(legacy));
+        measure("LegacyMove deserialize", () -> deserialize(legacySerialized));
+        out.println();
+    }
+
+    private static void benchmarkPuzzle(WordServerImpl wordServer, CrissCrossPuzzleServerImpl puzzleServer, int words) throws Exception {
+        Puzzle puzzle = puzzleServer.generatePuzzle(words, SEED);
+        char[][] finishedGrid = puzzle.getFinishedGrid();
+        List<String> script = guessScript(puzzle);
+        out.printf("%d words, %dx%d grid, %d guesses to finish%n",
+            words, finishedGrid.length, finishedGrid[0].length, script.size());
+
+        // Puzzle server
+        String vertWord = puzzle.getWords()[0];
+        int[] vertCrossIndex = puzzleServer.getRandomIndexes(vertWord, words - 1, new Random(SEED));
+        String[] horizWords = wordServer.getRandomWords("m", puzzleServer.getValuesAtRandomIndexes(vertWord, vertCrossIndex), SEED);
+
+        measure("server generatePuzzle", () -> puzzleServer.generatePuzzle(words, SEED));
+        measure("server createGrid", () -> puzzleServer.layoutGrid(vertWord, vertCrossIndex, horizWords, new HashMap<>()));
+        measure("server maskGrid", () -> puzzleServer.maskGrid(finishedGrid));
+
+        CrosswordGameStateImpl gameState = new CrosswordGameStateImpl("benchmark", words, Integer.MAX_VALUE);
+        for (String guess : script.subList(0, script.size() / 2)) {
+            if (guess.length() == 1) {
+                gameState.addLetterGuess(guess.charAt(0));
+            } else {
+                gameState.addWordGuess(guess);
+            }
+        }
+        measure("server updateUserGrid", () -> puzzleServer.updateUserGrid(gameState, finishedGrid));
+
+        // Client game
+        double newGameNanos = measure("new Game", () -> newGame(puzzle));
+        double fullGameNanos = measure("Game.checkGuess full game", () -> {
+            Game game = newGame(puzzle);
+            for (String guess : script) {
+                game.checkGuess(guess, "player");
+            }
+            return game.getGameStatus();
+        });
+        out.printf("  %-30s %10.0f ns/guess%n", "Game.checkGuess", (fullGameNanos - newGameNanos) / script.size());
+
+        Game halfway = newGame(puzzle);
+        for (String guess : script.subList(0, script.size() / 2)) {
+            halfway.checkGuess(guess, "player");
+        }
+        measure("Game.updateUserGrid", halfway::updateUserGrid);
+
+        // Serialization
+        Game fresh = newGame(puzzle);
+        LegacyGame legacyFresh = new LegacyGame(fresh, puzzle.getWords());
+        LegacyGame legacyHalfway = new LegacyGame(halfway, puzzle.getWords());
+        out.printf("  %-30s %10d bytes fresh, %d bytes halfway%n", "Game serialized size",
+            serialize(fresh).length, serialize(halfway).length);
+        out.printf("  %-30s %10d bytes fresh, %d bytes halfway%n", "LegacyGame serialized size",
+            serialize(legacyFresh).length, serialize(legacyHalfway).length);
+        byte[] serialized = serialize(halfway);
+        byte[] legacySerialized = serialize(legacyHalfway);
+        measure("Game serialize", () -> serialize(halfway));
+        measure("Game deserialize", () -> deserialize(serialized));
+        measure("LegacyGame serialize", () -> serialize(legacyHalfway));
+        measure("LegacyGame deserialize", () -> deserialize(legacySerialized));
+        out.println();
+    }
+
+    // Half the words first, then every letter left in the grid, in a seeded order.
+    private static List<String> guessScript(Puzzle puzzle) {
+        List<String> script = new ArrayList<>();
+        String[] words = puzzle.getWords();
+        for (int i = 0; i < words.length / 2; i++) {
+            script.add(words[i].toUpperCase());
+        }
+
+        Set<Character> letters = new TreeSet<>();
+        for (char[] row : puzzle.getFinishedGrid()) {
+            for (char cell : row) {
+                if (cell != '.') letters.add(cell);
+            }
+        }
+        List<String> letterGuesses = new ArrayList<>();
+        for (char letter : letters) {
+            letterGuesses.add(String.valueOf(letter));
+        }
+        Collections.shuffle(letterGuesses, new Random(SEED));
+        script.addAll(letterGuesses);
+        return script;
+    }
+
+    // Same setup as CrissCrossPuzzleServerImpl.translateToGame, without the remote game state.
+    private static Game newGame(Puzzle puzzle) {
+        char[][] finishedGrid = puzzle.getFinishedGrid();
+        Game game = new Game("benchmark", puzzle.getNumWords(), Integer.MAX_VALUE, puzzle.getWords(), false, 1);
+        game.initializeGrids(finishedGrid.length, finishedGrid[0].length);
+        for (int i = 0; i < finishedGrid.length; i++) {
+            game.setFinishedGridRow(i, finishedGrid[i].clone());
+        }
+        char[][] playerGrid = new char[finishedGrid.length][];
+        for (int i = 0; i < playerGrid.length; i++) {
+            playerGrid[i] = puzzle.getMaskedGrid()[i].clone();
+        }
+        game.setPlayerGrid(playerGrid);
+        game.setWordPlacements(puzzle.getPlacements());
+        game.addPlayer("player");
+        game.setGameStatus("In-progress");
+        return game;
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ois.readObject();
+        }
+    }
+
+    // Runs the operation for a warm-up sample and SAMPLES timed samples; prints and returns the median.
+    private static double measure(String name, Operation operation) throws Exception {
+        double[] nanosPerOp = new double[SAMPLES];
+        sample(operation);
+        for (int i = 0; i < SAMPLES; i++) {
+            nanosPerOp[i] = sample(operation);
+        }
+        Arrays.sort(nanosPerOp);
+        out.printf("  %-30s %10.0f ns/op%n", name, nanosPerOp[SAMPLES / 2]);
+        return nanosPerOp[SAMPLES / 2];
+    }
+
+    private static double sample(Operation operation) throws Exception {
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < BATCH; i++) {
+                Object result = operation.run();
+                sink += result == null ? 0 : System.identityHashCode(result);
+            }
+            operations += BATCH;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < SAMPLE_NANOS);
+        return (double) elapsed / operations;
+    }
+}
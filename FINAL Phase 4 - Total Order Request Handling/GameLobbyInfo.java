@@ -4,24 +4,38 @@
  * This class represents the state of a game lobby in a multiplayer game system. It holds information 
  * about the game lobby such as the game ID, host name, number of current players, expected players, 
  * and the game level.
+ * On the server, the lobby also carries a future that is completed with the Game when the last
+ * player joins; it is not sent to clients.
+ *
+ * Joining is safe without a lock: a player first reserves a seat (reserveSlot, a compare-and-set
+ * that never goes past expectedPlayers), then is added to the game and calls playerJoined. The
+ * player whose playerJoined completes the count starts the game, so it never starts before
+ * every seated player has been added.
+ * Leaving undoes the same steps in reverse: playerLeft (which fails once the game has
+ * started), then the player is taken out of the game, then the seat is given back.
  * */
 
 import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import game.Game;
 
 public class GameLobbyInfo implements Serializable {
 
     
     private String gameID;
     private String hostName;
-    private int currentPlayers;
+    private final AtomicInteger currentPlayers; // Seats taken
+    private final AtomicInteger joinedPlayers = new AtomicInteger(); // Players added to the game
     private int expectedPlayers;
     private int gameLevel; // optionally include level or other config
+    private transient CompletableFuture<Game> started = new CompletableFuture<>();
 
     public GameLobbyInfo(String gameID, String hostName, int expectedPlayers, int gameLevel) {
         this.gameID = gameID;
         this.hostName = hostName;
         this.expectedPlayers = expectedPlayers;
-        this.currentPlayers = 1; // lobby creator is the first player
+        this.currentPlayers = new AtomicInteger(1); // lobby creator is the first player
         this.gameLevel = gameLevel;
     }
 
@@ -35,7 +49,7 @@ public class GameLobbyInfo implements Serializable {
     
 
     public int getCurrentPlayers() {
-        return currentPlayers;
+        return currentPlayers.get();
     }
 
     public int getExpectedPlayers() {
@@ -46,12 +60,53 @@ public class GameLobbyInfo implements Serializable {
         return gameLevel;
     }
 
+    // Completed with the game once it starts
+    public CompletableFuture<Game> getStarted() {
+        return started;
+    }
+
+    // Takes a seat if one is free; returns the seat number (the creator has seat 1), or 0 if
+    // the lobby is full.
+    public int reserveSlot() {
+        while (true) {
+            int taken = currentPlayers.get();
+            if (taken >= expectedPlayers) {
+                return 0;
+            }
+            if (currentPlayers.compareAndSet(taken, taken + 1)) {
+                return taken + 1;
+            }
+        }
+    }
+
+    // Records that a seated player has been added to the game; true for the last one.
+    public boolean playerJoined() {
+        return joinedPlayers.incrementAndGet() == expectedPlayers;
+    }
+
+    // Takes back a join before the game starts; false if the last player has already joined.
+    public boolean playerLeft() {
+        while (true) {
+            int joined = joinedPlayers.get();
+            if (joined <= 0 || joined >= expectedPlayers) {
+                return false;
+            }
+            if (joinedPlayers.compareAndSet(joined, joined - 1)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean isFull() {
+        return currentPlayers.get() >= expectedPlayers;
+    }
+
     public void incrementPlayers() {
-        this.currentPlayers++;
+        currentPlayers.incrementAndGet();
     }
 
     public void decrementPlayers() {
-        this.currentPlayers--;
+        currentPlayers.decrementAndGet();
     }
 
     @Override
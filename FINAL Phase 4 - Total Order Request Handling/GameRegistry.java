@@ -0,0 +1,143 @@
+/*
+ * GameRegistry
+ *
+ * The game server's table of games by game ID, safe for any number of RMI threads.
+ * Games are spread over shards by ID, each a plain map behind its own short lock that is
+ * held only to find, add or remove a game. Work on a game runs under that game's own lock
+ * (withGame), so calls for different games never wait on each other, and calls for the same
+ * game run one at a time. The game lock is reentrant, so an action may call other methods
+ * that lock the same game.
+ *
+ * A game removed while an action waits for its lock is treated as absent, so a finished
+ * game (removed with remove) is never changed afterwards.
+ * */
+
+import java.rmi.RemoteException;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class GameRegistry<S> {
+
+    public static final int DEFAULT_SHARDS = 16;
+
+    // Work on one game, run holding its lock
+    public interface GameAction<S, R> {
+        R apply(S state) throws RemoteException;
+    }
+
+    // Makes the state of a new game
+    public interface GameFactory<S> {
+        S create() throws RemoteException;
+    }
+
+    private static class Entry<S> {
+        final S state;
+        final ReentrantLock lock = new ReentrantLock();
+        volatile boolean removed; // Set under the shard's lock
+
+        Entry(S state) {
+            this.state = state;
+        }
+    }
+
+    private final Map<String, Entry<S>>[] shards;
+    private final int mask;
+
+    public GameRegistry() {
+        this(DEFAULT_SHARDS);
+    }
+
+    // The shard count is rounded up to a power of two.
+    public GameRegistry(int shardCount) {
+        int count = 1;
+        while (count < shardCount) count <<= 1;
+        @SuppressWarnings({"unchecked", "rawtypes"}) // Arrays of a generic type cannot be created directly
+        Map<String, Entry<S>>[] created = new Map[count];
+        for (int i = 0; i < count; i++) {
+            created[i] = new HashMap<>();
+        }
+        shards = created;
+        mask = count - 1;
+    }
+
+    public S get(String gameID) {
+        Entry<S> entry = entry(gameID);
+        return (entry == null) ? null : entry.state;
+    }
+
+    public boolean contains(String gameID) {
+        return entry(gameID) != null;
+    }
+
+    // Adds the game, replacing any game with the same ID.
+    public void put(String gameID, S state) {
+        Map<String, Entry<S>> shard = shard(gameID);
+        synchronized (shard) {
+            Entry<S> previous = shard.put(gameID, new Entry<>(state));
+            if (previous != null) previous.removed = true;
+        }
+    }
+
+    // Returns the game with this ID, first adding one made by the factory if there is none.
+    // Two threads creating the same ID get the same game. The factory runs under the
+    // shard's lock, so it should only build the state.
+    public S createIfAbsent(String gameID, GameFactory<S> factory) throws RemoteException {
+        Map<String, Entry<S>> shard = shard(gameID);
+        synchronized (shard) {
+            Entry<S> entry = shard.get(gameID);
+            if (entry == null) {
+                entry = new Entry<>(factory.create());
+                shard.put(gameID, entry);
+            }
+            return entry.state;
+        }
+    }
+
+    // Runs the action on the game holding its lock and returns its result, or returns null
+    // without running it if there is no such game.
+    public <R> R withGame(String gameID, GameAction<S, R> action) throws RemoteException {
+        Entry<S> entry = entry(gameID);
+        if (entry == null) return null;
+
+        entry.lock.lock();
+        try {
+            if (entry.removed) return null;
+            return action.apply(entry.state);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    // Removes the game; returns its state, or null if there was none.
+    public S remove(String gameID) {
+        Map<String, Entry<S>> shard = shard(gameID);
+        synchronized (shard) {
+            Entry<S> entry = shard.remove(gameID);
+            if (entry == null) return null;
+            entry.removed = true;
+            return entry.state;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, Entry<S>> shard : shards) {
+            synchronized (shard) {
+                size += shard.size();
+            }
+        }
+        return size;
+    }
+
+    private Entry<S> entry(String gameID) {
+        Map<String, Entry<S>> shard = shard(gameID);
+        synchronized (shard) {
+            return shard.get(gameID);
+        }
+    }
+
+    private Map<String, Entry<S>> shard(String gameID) {
+        int hash = gameID.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & mask];
+    }
+}
@@ -0,0 +1,417 @@
+/*
+ * MappedWordIndex
+ *
+ * WordLookup over a words.bin file compiled by WordCompiler. The file is memory
+ * mapped and queried in place: words, sort orders, posting lists and the hash table
+ * used for membership are all read straight from the mapping, so opening it does no
+ * parsing and the heap holds no per-word objects. Only the words a query returns
+ * are turned into Strings.
+ *
+ * File layout (big-endian ints, words stored as UTF-16 chars):
+ *   header         MAGIC, VERSION, wordCount, maxLength, hashSlots, charCount
+ *   wordOffsets    int[wordCount + 1], char offset of each word in the chars section
+ *   prefixOrder    int[wordCount]
+ *   suffixOrder    int[wordCount]
+ *   lengthOrder    int[wordCount]
+ *   lengthOffsets  int[maxLength + 2]
+ *   3 letter tables (containing, starting with, ending with), each:
+ *                  letterCount, postingCount, letterCount x (letter, start, count), int[postingCount]
+ *   hashTable      int[hashSlots], word position + 1 (0 = empty slot)
+ *   chars          char[charCount]
+ * The orders and posting lists hold word positions, exactly as in WordIndex.
+ * */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+public final class MappedWordIndex implements WordLookup {
+    private static final int MAGIC = 0x57444958; // "WDIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 6;
+
+    private final ByteBuffer buf;
+    private final int wordCount;
+    private final int maxLength;
+    private final int hashSlots;
+
+    // Byte offsets of each section in buf
+    private final int wordOffsetsAt;
+    private final int prefixOrderAt;
+    private final int suffixOrderAt;
+    private final int lengthOrderAt;
+    private final int lengthOffsetsAt;
+    private final LetterTable containing;
+    private final LetterTable startingWith;
+    private final LetterTable endingWith;
+    private final int hashAt;
+    private final int charsAt;
+
+    // Position of one letter table inside the file
+    private static final class LetterTable {
+        final int entriesAt;
+        final int letterCount;
+        final int postingsAt;
+
+        LetterTable(int entriesAt, int letterCount, int postingsAt) {
+            this.entriesAt = entriesAt;
+            this.letterCount = letterCount;
+            this.postingsAt = postingsAt;
+        }
+    }
+
+    private MappedWordIndex(ByteBuffer buf) throws IOException {
+        this.buf = buf;
+        if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+            throw new IOException("Not a word index file (or built by another version)");
+        }
+        wordCount = buf.getInt(8);
+        maxLength = buf.getInt(12);
+        hashSlots = buf.getInt(16);
+
+        int at = HEADER_INTS * 4;
+        wordOffsetsAt = at;    at += (wordCount + 1) * 4;
+        prefixOrderAt = at;    at += wordCount * 4;
+        suffixOrderAt = at;    at += wordCount * 4;
+        lengthOrderAt = at;    at += wordCount * 4;
+        lengthOffsetsAt = at;  at += (maxLength + 2) * 4;
+
+        LetterTable[] tables = new LetterTable[3];
+        for (int t = 0; t < tables.length; t++) {
+            int letterCount = buf.getInt(at);
+            int postingCount = buf.getInt(at + 4);
+            int entriesAt = at + 8;
+            int postingsAt = entriesAt + letterCount * 12;
+            tables[t] = new LetterTable(entriesAt, letterCount, postingsAt);
+            at = postingsAt + postingCount * 4;
+        }
+        containing = tables[0];
+        startingWith = tables[1];
+        endingWith = tables[2];
+
+        hashAt = at;           at += hashSlots * 4;
+        charsAt = at;
+    }
+
+    // Maps a words.bin file; the mapping stays valid after the channel is closed.
+    public static MappedWordIndex open(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            return new MappedWordIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    @Override
+    public boolean contains(String word) {
+        int slot = hashSlot(word.hashCode());
+        int entry;
+        while ((entry = buf.getInt(hashAt + slot * 4)) != 0) {
+            if (wordEquals(entry - 1, word)) return true;
+            slot = (slot + 1) & (hashSlots - 1);
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return wordCount;
+    }
+
+    @Override
+    public List<String> toList() {
+        List<String> words = new ArrayList<>(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            words.add(wordAt(i));
+        }
+        return words;
+    }
+
+    @Override
+    public int countMatching(String command, String key) {
+        LetterTable table = table(command);
+        if (key.length() == 1) {
+            int entry = findLetter(table, key.charAt(0));
+            return entry < 0 ? 0 : buf.getInt(entry + 8);
+        }
+
+        switch (command) {
+            case "f": {
+                // Words sharing a prefix are contiguous in prefixOrder
+                int from = firstAtOrAfter(prefixOrderAt, key, false);
+                return firstNotMatching(prefixOrderAt, key, false, from) - from;
+            }
+            case "e": {
+                // Words sharing a suffix are contiguous in suffixOrder
+                int from = firstAtOrAfter(suffixOrderAt, key, true);
+                return firstNotMatching(suffixOrderAt, key, true, from) - from;
+            }
+            default: {
+                int matches = 0;
+                for (int i = 0; i < wordCount; i++) {
+                    if (wordContains(i, key)) matches++;
+                }
+                return matches;
+            }
+        }
+    }
+
+    @Override
+    public String getMatching(String command, String key, int n) {
+        LetterTable table = table(command);
+        if (key.length() == 1) {
+            int entry = findLetter(table, key.charAt(0));
+            if (entry < 0) throw new IndexOutOfBoundsException("No words with letter '" + key + "'");
+            return wordAt(buf.getInt(table.postingsAt + (buf.getInt(entry + 4) + n) * 4));
+        }
+
+        switch (command) {
+            case "f":
+                return wordAt(orderAt(prefixOrderAt, firstAtOrAfter(prefixOrderAt, key, false) + n));
+            case "e":
+                return wordAt(orderAt(suffixOrderAt, firstAtOrAfter(suffixOrderAt, key, true) + n));
+            default:
+                for (int i = 0; i < wordCount; i++) {
+                    if (wordContains(i, key) && n-- == 0) return wordAt(i);
+                }
+                throw new IndexOutOfBoundsException("No match number " + n + " for '" + key + "'");
+        }
+    }
+
+    @Override
+    public int countWithLength(int minLength, int maxLength) {
+        minLength = Math.max(minLength, 0);
+        maxLength = Math.min(maxLength, this.maxLength);
+        if (minLength > maxLength) return 0;
+
+        return lengthOffset(maxLength + 1) - lengthOffset(minLength);
+    }
+
+    @Override
+    public String getWithLength(int minLength, int maxLength, int n) {
+        return wordAt(orderAt(lengthOrderAt, lengthOffset(Math.max(minLength, 0)) + n));
+    }
+
+    /**
+     * Compiles an index into the words.bin format. The file is written next to the
+     * target and moved into place, so a reader never maps a half-written file.
+     */
+    public static void write(WordIndex index, String path) throws IOException {
+        String[] words = index.words();
+        int charCount = 0;
+        for (String word : words) {
+            charCount += word.length();
+        }
+        int[] lengthOffsets = index.lengthOffsets();
+        int hashSlots = Integer.highestOneBit(Math.max(1, words.length * 2 - 1)) << 1;
+
+        File target = new File(path);
+        File temp = new File(path + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(words.length);
+            out.writeInt(lengthOffsets.length - 2);
+            out.writeInt(hashSlots);
+            out.writeInt(charCount);
+
+            int offset = 0;
+            for (String word : words) {
+                out.writeInt(offset);
+                offset += word.length();
+            }
+            out.writeInt(offset);
+
+            writeInts(out, index.prefixOrder());
+            writeInts(out, index.suffixOrder());
+            writeInts(out, index.lengthOrder());
+            writeInts(out, lengthOffsets);
+
+            writeLetterTable(out, index.containing());
+            writeLetterTable(out, index.startingWith());
+            writeLetterTable(out, index.endingWith());
+
+            // Open addressing with linear probing, same hash as contains()
+            int[] table = new int[hashSlots];
+            for (int i = 0; i < words.length; i++) {
+                int slot = hashSlot(words[i].hashCode(), hashSlots);
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & (hashSlots - 1);
+                }
+                table[slot] = i + 1;
+            }
+            writeInts(out, table);
+
+            for (String word : words) {
+                out.writeChars(word);
+            }
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeLetterTable(DataOutputStream out, Map<Character, int[]> postings) throws IOException {
+        // Letters sorted so findLetter can binary search them
+        TreeMap<Character, int[]> sorted = new TreeMap<>(postings);
+        int postingCount = 0;
+        for (int[] list : sorted.values()) {
+            postingCount += list.length;
+        }
+        out.writeInt(sorted.size());
+        out.writeInt(postingCount);
+
+        int start = 0;
+        for (Map.Entry<Character, int[]> entry : sorted.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(start);
+            out.writeInt(entry.getValue().length);
+            start += entry.getValue().length;
+        }
+        for (int[] list : sorted.values()) {
+            writeInts(out, list);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private LetterTable table(String command) {
+        switch (command) {
+            case "m": return containing;
+            case "f": return startingWith;
+            case "e": return endingWith;
+            default: throw new IllegalArgumentException("Unknown command type: " + command);
+        }
+    }
+
+    // Byte offset of the (letter, start, count) entry for a letter, or -1 if absent
+    private int findLetter(LetterTable table, char letter) {
+        int low = 0;
+        int high = table.letterCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = table.entriesAt + mid * 12;
+            int found = buf.getInt(entry);
+            if (found < letter) {
+                low = mid + 1;
+            } else if (found > letter) {
+                high = mid - 1;
+            } else {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private int hashSlot(int hash) {
+        return hashSlot(hash, hashSlots);
+    }
+
+    private static int hashSlot(int hash, int slots) {
+        return (hash ^ (hash >>> 16)) & (slots - 1);
+    }
+
+    private int orderAt(int orderAt, int i) {
+        return buf.getInt(orderAt + i * 4);
+    }
+
+    private int lengthOffset(int length) {
+        return buf.getInt(lengthOffsetsAt + length * 4);
+    }
+
+    private int wordStart(int position) {
+        return buf.getInt(wordOffsetsAt + position * 4);
+    }
+
+    private int wordLength(int position) {
+        return buf.getInt(wordOffsetsAt + (position + 1) * 4) - wordStart(position);
+    }
+
+    private char charAt(int start, int i) {
+        return buf.getChar(charsAt + (start + i) * 2);
+    }
+
+    private String wordAt(int position) {
+        int start = wordStart(position);
+        char[] chars = new char[wordLength(position)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = charAt(start, i);
+        }
+        return new String(chars);
+    }
+
+    private boolean wordEquals(int position, String word) {
+        if (wordLength(position) != word.length()) return false;
+        return regionMatches(wordStart(position), word);
+    }
+
+    private boolean wordContains(int position, String key) {
+        int start = wordStart(position);
+        int last = wordLength(position) - key.length();
+        for (int from = 0; from <= last; from++) {
+            if (regionMatches(start + from, key)) return true;
+        }
+        return false;
+    }
+
+    private boolean regionMatches(int start, String key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (charAt(start, i) != key.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // Compares a stored word with the key, like String.compareTo (or on the reversed strings)
+    private int compare(int position, String key, boolean reversed) {
+        int start = wordStart(position);
+        int length = wordLength(position);
+        int common = Math.min(length, key.length());
+        for (int i = 0; i < common; i++) {
+            char a = reversed ? charAt(start, length - 1 - i) : charAt(start, i);
+            char b = reversed ? key.charAt(key.length() - 1 - i) : key.charAt(i);
+            if (a != b) return a - b;
+        }
+        return length - key.length();
+    }
+
+    private boolean hasAffix(int position, String key, boolean suffix) {
+        int length = wordLength(position);
+        if (length < key.length()) return false;
+        return regionMatches(wordStart(position) + (suffix ? length - key.length() : 0), key);
+    }
+
+    // Binary search for the first word that sorts at or after the key
+    private int firstAtOrAfter(int orderAt, String key, boolean reversed) {
+        int low = 0;
+        int high = wordCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(orderAt(orderAt, mid), key, reversed) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Binary search for the end of the run of words starting (or ending) with the key
+    private int firstNotMatching(int orderAt, String key, boolean reversed, int from) {
+        int low = from;
+        int high = wordCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (hasAffix(orderAt(orderAt, mid), key, reversed)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * MoveSequencer
+ *
+ * Gives the moves of each multiplayer game one global order, for players that use
+ * -Dreceiver.ordering=sequencer. Each move gets the next sequence number of its game
+ * (starting at 1) and is kept in the game's log, so a player that sees a gap in the
+ * numbers can fetch the moves it missed. Only games opened with startGame and not over yet
+ * are numbered; a late move for any other game is refused rather than starting a new log.
+ *
+ * A game's log is released once the game is over: after a move that finishes it (WIN or
+ * LOSE), or once every player has left. It is kept -Dsequencer.release.ms (default 5000)
+ * longer, so players that missed the last moves can still fetch them; keep it well above
+ * the players' -Dreceiver.retransmit.ms (default 500), the time a quiet receiver waits
+ * before it asks. Single-player games are released at once by endGame.
+ * */
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import game.GameMove;
+
+public class MoveSequencer {
+
+    private static final long RELEASE_DELAY_MS = Long.getLong("sequencer.release.ms", 5000);
+
+    // One game's moves in order, and the players still in it; guarded by itself
+    private static class GameLog {
+        final List<GameMove> moves = new ArrayList<>();
+        final Set<String> players = new HashSet<>();
+        boolean releasing = false;
+    }
+
+    private final Map<String, GameLog> logs = new ConcurrentHashMap<>(); // Game ID -> log
+    private final AtomicLong sequenced = new AtomicLong();
+    private final AtomicLong retransmitted = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private final ScheduledExecutorService releaser = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "sequencer-release");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Records who plays a game that has just started, so its log is kept until they all leave.
+    public void startGame(String gameID, String[] players) {
+        GameLog log = logs.computeIfAbsent(gameID, id -> new GameLog());
+        synchronized (log) {
+            log.players.addAll(Arrays.asList(players));
+        }
+    }
+
+    // Numbers the move within its game and logs it; returns the numbered copy, or null if
+    // the game was never started here or is already over.
+    public GameMove sequence(GameMove move) {
+        GameLog log = logs.get(move.getGameID());
+        if (log == null) return null;
+
+        synchronized (log) {
+            if (log.releasing) return null;
+            GameMove numbered = move.sequenced(log.moves.size() + 1);
+            log.moves.add(numbered);
+            sequenced.incrementAndGet();
+            if ("WIN".equals(move.getStatus()) || "LOSE".equals(move.getStatus())) {
+                release(move.getGameID(), log); // The game is over for every player
+            }
+            return numbered;
+        }
+    }
+
+    // Moves of the game from the given sequence number on, for a player that missed them.
+    public List<GameMove> movesSince(String gameID, int fromSequence) {
+        GameLog log = logs.get(gameID);
+        if (log == null) return Collections.emptyList();
+
+        synchronized (log) {
+            List<GameMove> missed = new ArrayList<>(log.moves.subList(
+                Math.min(Math.max(fromSequence, 1) - 1, log.moves.size()), log.moves.size()));
+            retransmitted.addAndGet(missed.size());
+            return missed;
+        }
+    }
+
+    // A player has stopped playing the game; the log is released once no player is left.
+    public void playerLeft(String gameID, String player) {
+        GameLog log = logs.get(gameID);
+        if (log == null) return;
+
+        synchronized (log) {
+            log.players.remove(player);
+            if (log.players.isEmpty()) {
+                release(gameID, log);
+            }
+        }
+    }
+
+    public void endGame(String gameID) {
+        if (logs.remove(gameID) != null) {
+            released.incrementAndGet();
+        }
+    }
+
+    // Drops the log after the release delay. Called holding the log.
+    private void release(String gameID, GameLog log) {
+        if (log.releasing) return;
+        log.releasing = true;
+        releaser.schedule(() -> {
+            if (logs.remove(gameID, log)) {
+                released.incrementAndGet();
+            }
+        }, RELEASE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public String getStats() {
+        return "Sequenced moves: " + sequenced.get() + " in " + logs.size() + " games (" + released.get()
+            + " released), retransmitted: " + retransmitted.get() + "\n";
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * OrderingBenchmark
+ *
+ * Compares the two ways ReceiverImpl can put moves in one order: Lamport timestamps with
+ * heartbeats, and sequence numbers from the puzzle server's MoveSequencer. For 2 to 10
+ * players, one receiver per player runs in this JVM with its own RMI stub. Random players
+ * make moves at a steady pace, "burst" moves at a time, and every delivery is timed from
+ * the start of its send. Reports the delivery latency, and the remote calls made per move
+ * and per second, heartbeats and sequencer calls included.
+ *
+ *   java OrderingBenchmark [moves] [thinkMs] [burst]
+ * Options: -Dbenchmark.seed=<n> (default 42), and the receiver settings, e.g.
+ *          -Dreceiver.heartbeat.ms=<n>, -Dreceiver.batch.ms=<n> (0 to send each move alone)
+ * */
+
+import java.io.*;
+import java.rmi.Naming;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import game.GameMove;
+
+public class OrderingBenchmark {
+
+    private static final long SEED = Long.getLong("benchmark.seed", 42);
+    private static final long DELIVERY_TIMEOUT_MS = 10_000;
+
+    private static PrintStream out;
+    private static CrissCrossPuzzleServerImpl server;
+
+    // Send time of each move in flight, by guess
+    private static final Map<String, Long> sendNanos = new ConcurrentHashMap<>();
+    private static final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+    private static final AtomicInteger deliveries = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        int moves = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        long thinkMs = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        int burst = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        // The receivers log every message; keep that out of the results
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        LocateRegistry.createRegistry(1099);
+        server = new CrissCrossPuzzleServerImpl();
+        Naming.rebind("rmi://localhost/CrissCrossPuzzleServer", server);
+
+        ReceiverImpl.registerMoveHandler(move -> {
+            Long sent = sendNanos.get(move.getGuess());
+            if (sent != null) {
+                latencies.add(System.nanoTime() - sent);
+                deliveries.incrementAndGet();
+            }
+        });
+
+        out.printf("%d moves, %d every %d ms, heartbeat %s ms, batch %s ms%n%n", moves, burst, thinkMs,
+            System.getProperty("receiver.heartbeat.ms", "250"), System.getProperty("receiver.batch.ms", "10"));
+        out.printf("%-8s %-10s %10s %10s %10s %12s %12s%n", "players", "ordering", "avg ms", "p95 ms", "max ms",
+            "calls/move", "calls/s");
+        for (int players = 2; players <= 10; players++) {
+            for (ReceiverImpl.Ordering ordering : ReceiverImpl.Ordering.values()) {
+                run(players, ordering, moves, thinkMs, burst);
+            }
+        }
+        // The RMI objects keep the JVM alive
+        System.exit(0);
+    }
+
+    private static void run(int playerCount, ReceiverImpl.Ordering ordering, int moves, long thinkMs, int burst) throws Exception {
+        String gameID = "benchmark-" + playerCount + "-" + ordering;
+        String[] names = new String[playerCount];
+        ReceiverImpl[] receivers = new ReceiverImpl[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            names[i] = gameID + "-player" + i;
+            receivers[i] = new ReceiverImpl(names[i], ordering);
+            Naming.rebind("rmi://localhost/ReceiverInterface/" + names[i], receivers[i]);
+        }
+        server.startSequencing(gameID, names); // As startMultiplayer does when a lobby fills
+        for (ReceiverImpl receiver : receivers) {
+            receiver.connectPeers(gameID, names);
+        }
+
+        latencies.clear();
+        deliveries.set(0);
+        Random random = new Random(SEED);
+        long start = System.nanoTime();
+        for (int n = 0; n < moves; ) {
+            int player = random.nextInt(playerCount);
+            for (int i = 0; i < burst && n < moves; i++, n++) {
+                String guess = gameID + "-" + n;
+                sendNanos.put(guess, System.nanoTime());
+                receivers[player].sendMove(names, names[player], new GameMove(gameID, names[player], guess, 5, "In-progress"));
+            }
+            Thread.sleep(thinkMs);
+        }
+
+        // Every other player has to deliver every move
+        int expected = moves * (playerCount - 1);
+        long deadline = System.currentTimeMillis() + DELIVERY_TIMEOUT_MS;
+        while (deliveries.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // Let the last heartbeats go out, they are part of the cost
+        Thread.sleep(2 * Long.getLong("receiver.heartbeat.ms", 250));
+
+        long calls = 0;
+        for (ReceiverImpl receiver : receivers) {
+            calls += receiver.getMessagesSent();
+            UnicastRemoteObject.unexportObject(receiver, true);
+        }
+
+        List<Long> sorted;
+        synchronized (latencies) {
+            sorted = new ArrayList<>(latencies);
+        }
+        Collections.sort(sorted);
+        if (sorted.size() < expected) {
+            out.printf("%-8d %-10s only %d of %d deliveries%n", playerCount, ordering, sorted.size(), expected);
+            return;
+        }
+        double average = sorted.stream().mapToLong(Long::longValue).average().orElse(0) / 1e6;
+        out.printf("%-8d %-10s %10.1f %10.1f %10.1f %12.1f %12.0f%n", playerCount, ordering.name().toLowerCase(), average,
+            sorted.get((int) (sorted.size() * 0.95)) / 1e6, sorted.get(sorted.size() - 1) / 1e6,
+            (double) calls / moves, calls / seconds);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Puzzle
+ *
+ * A generated crossword layout that has not been given to a game yet: the solved grid,
+ * the masked grid shown to players, the words (vertical word first) and the number of
+ * letter cells the players have to uncover.
+ * The seed the puzzle was generated from regenerates it, as long as the word list is unchanged.
+ * */
+
+import java.util.List;
+import java.util.Map;
+import game.WordPlacement;
+
+public class Puzzle {
+
+    private final String[] words;
+    private final char[][] finishedGrid;
+    private final char[][] maskedGrid;
+    private final int letterCount;
+    private final long seed;
+    private final Map<String, List<WordPlacement>> placements; // Upper-case word -> where it sits
+
+    public Puzzle(long seed, String[] words, char[][] finishedGrid, char[][] maskedGrid, int letterCount,
+                  Map<String, List<WordPlacement>> placements) {
+        this.seed = seed;
+        this.placements = placements;
+        this.words = words;
+        this.finishedGrid = finishedGrid;
+        this.maskedGrid = maskedGrid;
+        this.letterCount = letterCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String[] getWords() {
+        return words;
+    }
+
+    public int getNumWords() {
+        return words.length;
+    }
+
+    public char[][] getFinishedGrid() {
+        return finishedGrid;
+    }
+
+    public char[][] getMaskedGrid() {
+        return maskedGrid;
+    }
+
+    public int getLetterCount() {
+        return letterCount;
+    }
+
+    public Map<String, List<WordPlacement>> getPlacements() {
+        return placements;
+    }
+}
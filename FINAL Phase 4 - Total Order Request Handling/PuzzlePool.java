@@ -0,0 +1,123 @@
+/*
+ * PuzzlePool
+ *
+ * Keeps a stock of ready-made puzzles for each word count so a game can start without
+ * waiting on the word server. Each word count has a low and a high watermark: when a
+ * take() leaves fewer than "low" puzzles in stock, a background thread generates new
+ * ones until "high" are ready. A take() on an empty stock is a miss and generates the
+ * puzzle on the caller's thread, as before the pool existed.
+ * */
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+public class PuzzlePool {
+    public static final int DEFAULT_LOW_WATERMARK = 2;
+    public static final int DEFAULT_HIGH_WATERMARK = 5;
+
+    private final IntFunction<Puzzle> generator; // word count -> new puzzle
+    private final ExecutorService refillThreads;
+    private final Map<Integer, Stock> stocks = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // Ready puzzles for one word count
+    private static class Stock {
+        final BlockingQueue<Puzzle> ready;
+        final AtomicBoolean refilling = new AtomicBoolean();
+        final int lowWatermark;
+        final int highWatermark;
+
+        Stock(int lowWatermark, int highWatermark) {
+            this.lowWatermark = lowWatermark;
+            this.highWatermark = highWatermark;
+            this.ready = new ArrayBlockingQueue<>(Math.max(1, highWatermark));
+        }
+    }
+
+    public PuzzlePool(IntFunction<Puzzle> generator, int threads) {
+        this.generator = generator;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refillThreads = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "puzzle-pool-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Sets the watermarks for one word count; call before the first take() for it.
+    public void setWatermarks(int numberOfWords, int lowWatermark, int highWatermark) {
+        if (lowWatermark < 0 || highWatermark < lowWatermark) {
+            throw new IllegalArgumentException("Invalid watermarks " + lowWatermark + "/" + highWatermark);
+        }
+        stocks.put(numberOfWords, new Stock(lowWatermark, highWatermark));
+    }
+
+    // Returns a puzzle with the given word count, from stock if one is ready.
+    public Puzzle take(int numberOfWords) {
+        Stock stock = stock(numberOfWords);
+        Puzzle puzzle = stock.ready.poll();
+        refillIfLow(numberOfWords, stock);
+
+        if (puzzle != null) {
+            hits.incrementAndGet();
+            return puzzle;
+        }
+        misses.incrementAndGet();
+        return generator.apply(numberOfWords);
+    }
+
+    // Starts filling the stock for a word count up to its high watermark.
+    public void fill(int numberOfWords) {
+        Stock stock = stock(numberOfWords);
+        if (stock.refilling.compareAndSet(false, true)) {
+            refillThreads.execute(() -> refill(numberOfWords, stock));
+        }
+    }
+
+    public void shutdown() {
+        refillThreads.shutdownNow();
+    }
+
+    public String getStats() {
+        StringBuilder result = new StringBuilder();
+        result.append("Puzzle pool hits: ").append(hits.get())
+              .append(", misses: ").append(misses.get()).append("\n");
+        for (Map.Entry<Integer, Stock> entry : new TreeMap<>(stocks).entrySet()) {
+            Stock stock = entry.getValue();
+            result.append("  ").append(entry.getKey()).append(" words: ")
+                  .append(stock.ready.size()).append(" ready (low ").append(stock.lowWatermark)
+                  .append(", high ").append(stock.highWatermark).append(")\n");
+        }
+        return result.toString();
+    }
+
+    private Stock stock(int numberOfWords) {
+        return stocks.computeIfAbsent(numberOfWords, n -> new Stock(DEFAULT_LOW_WATERMARK, DEFAULT_HIGH_WATERMARK));
+    }
+
+    private void refillIfLow(int numberOfWords, Stock stock) {
+        if (stock.ready.size() < stock.lowWatermark) {
+            fill(numberOfWords);
+        }
+    }
+
+    private void refill(int numberOfWords, Stock stock) {
+        try {
+            while (stock.ready.size() < stock.highWatermark && !Thread.currentThread().isInterrupted()) {
+                if (!stock.ready.offer(generator.apply(numberOfWords))) {
+                    break; // Full
+                }
+            }
+        } catch (RuntimeException e) {
+            // e.g. word server down; the next take() will try again
+            System.err.println("Puzzle pool could not generate a " + numberOfWords + " word puzzle: " + e.getMessage());
+        } finally {
+            stock.refilling.set(false);
+        }
+    }
+}
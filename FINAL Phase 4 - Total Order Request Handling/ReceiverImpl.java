@@ -3,20 +3,50 @@
  *  processes the game messages from other client processes to achieve FIFO - total order Synchronization
  * 
  * Key responsibilities of this class:
- * 1. **Receive Game Messages**: Receives and processes game updates sent by other client processes.
+ * 1. **Receive Game Messages**: Receives and processes game updates sent by other client processes:
+ *    the whole Game once when a game starts, then one GameMove per guess.
  * 2. **Deliver Game Messages in Order**: Ensures that game messages are delivered in the correct order based on Lamport logical timestamps.
  * 3. **Clock Synchronization**: Uses a Lamport clock to synchronize messages from different clients.
  * 4. **Gossip Protocol**: Sends the received game message to all other players in the game (via RMI lookup).
+ *    Each player has its own send thread, so players are sent to in parallel while every player
+ *    still gets our messages in the order they were sent, as total ordering needs. A player that
+ *    does not answer within -Dreceiver.sendTimeoutMs is reported as slow and not waited on again
+ *    until it catches up; later messages still queue behind the one it is stuck on, so it gets them
+ *    all, in order. Only a player whose receiver is gone (not bound, or refusing connections twice
+ *    in a row) is sent nothing more in this game.
+ *    Player stubs are looked up once per game and cached until a call on them fails.
+ * 5. **Heartbeats**: A message is only delivered once every other player has been heard from with a
+ *    later timestamp, so an idle player would hold up everyone's moves. Every -Dreceiver.heartbeat.ms
+ *    (default 250, 0 disables) a receiver that has received something since it last sent tells the
+ *    players its current timestamp; delivery then waits at most about one heartbeat period.
+ *    Sends are made one at a time so a heartbeat never overtakes an earlier move.
+ * 6. **Sequencer ordering**: With -Dreceiver.ordering=sequencer, moves are numbered by the puzzle server
+ *    (MoveSequencer) before they are sent, and each receiver delivers them in number order (SequenceQueue)
+ *    as soon as the previous one is in, without waiting on the other players or heartbeats. A gap that
+ *    lasts -Dreceiver.retransmit.ms (default 500) is filled from the server's log, and a game that has
+ *    been quiet that long asks it for anything new, in case its last move was lost. The default,
+ *    "lamport", is the timestamp ordering above.
+ * 7. **Batching**: Moves sent within -Dreceiver.batch.ms (default 10) of the first one waiting are sent
+ *    together, one receiveMoves call per player, each move keeping its own timestamp or sequence number.
+ *    sendMove then returns before the moves are sent. 0 sends every move at once, as before.
+ * 8. **Game start**: The game server pushes a new game to one player at a time, so moves can arrive
+ *    before this player's receiver has the game. Moves for any game but the current one are held, and
+ *    handed to the game's queue in timestamp order once connectPeers makes it the current game.
 
  * Dependencies:
  * - `LamportClock`: A logical clock for timestamp synchronization between distributed processes.
  * - `GameMessage`: A class that encapsulates the game object, sender ID, and timestamp of each received game update.
+ * - `TotalOrderQueue`: Thread-safe queue that holds messages until they can be delivered in timestamp order, one per game.
+ * - `SequenceQueue`: The same for sequencer ordering.
  * - `GameUpdateHandler`: An interface for applying received game updates to the game state. Found in Client
  * 
  * Methods:
  * 1. `receiveGame(Game game, String senderID, int timestamp)`: Handles the reception of a game message, updates the Lamport clock,
- *    stores the message in the priority queue, and attempts to deliver all messages in the correct order.
+ *    stores the message in the delivery queue, which delivers all messages that are ready in the correct order.
  * 2. `sendGame(String[] players, String senderID, Game game)`: Sends the game message to other players, using RMI to deliver the message.
+ *    `receiveMove` / `sendMove` do the same for a single guess (GameMove); a game's moves share its queue.
+ *    `receiveMoves` takes a batch of moves from one sender.
+ *    `receiveHeartbeat` only advances the sender's timestamp in the game's queue.
  * 3. `doEvent(String event, char[][] grid)`: Handles game events and updates the timestamp.
  * 4. `main(String[] args)`: Entry point that starts the receiver server and binds it to the RMI registry.
  */
@@ -27,45 +57,165 @@ import java.rmi.server.UnicastRemoteObject;
 import java.rmi.registry.*;
 import java.util.*;
 import java.io.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import game.Game;
+import game.GameMove;
+import game.Wire;
 
 public class ReceiverImpl extends UnicastRemoteObject implements ReceiverInterface {
 
+    private static final long SEND_TIMEOUT_MS = Long.getLong("receiver.sendTimeoutMs", 2000);
+    private static final int CONNECT_FAILURES_TO_DROP = 2; // Refused sends in a row before a player is dropped
+    private static final long HEARTBEAT_MS = Long.getLong("receiver.heartbeat.ms", 250);
+    private static final long RETRANSMIT_MS = Long.getLong("receiver.retransmit.ms", 500);
+    private static final long BATCH_MS = Long.getLong("receiver.batch.ms", 10);
+    private static final String SERVER_URL = "rmi://localhost/CrissCrossPuzzleServer";
+
+    // How moves are put in one order for every player
+    public enum Ordering {
+        LAMPORT,   // Lamport timestamps, all-to-all, with heartbeats
+        SEQUENCER; // Sequence numbers from the puzzle server
+
+        public static Ordering fromProperty() {
+            return valueOf(System.getProperty("receiver.ordering", "lamport").trim().toUpperCase());
+        }
+    }
+
     private String processName;
+    private final Ordering ordering;
     private LamportClock clock;
-    private PriorityQueue<GameMessage> gameQueue = new PriorityQueue<>(); //Keeps track of meesages in queue
-    private Map<String, Integer> lastSeenTimestamps = new HashMap<>(); // Keeps track of latest timestamp of each client nodes
+    private final Map<String, TotalOrderQueue<GameMessage>> gameQueues = new ConcurrentHashMap<>(); // Game ID -> messages waiting for delivery
+    private final Map<String, ExecutorService> sendQueues = new ConcurrentHashMap<>(); // Player -> its send thread
+    private final Set<String> failedPeers = ConcurrentHashMap.newKeySet(); // Gone this game, sent nothing more
+    private final Set<String> slowPeers = ConcurrentHashMap.newKeySet(); // Timed out, not waited on until a send completes
+    private final Map<String, Integer> connectFailures = new ConcurrentHashMap<>(); // Player -> refused sends in a row
+    private final Map<String, ReceiverInterface> peers = new ConcurrentHashMap<>(); // Player -> receiver stub
+    private final AtomicLong peerLookups = new AtomicLong(); // Registry lookups, for monitoring
+    private final ReentrantLock sendLock = new ReentrantLock(); // Keeps sends in timestamp order
+    private volatile int lastSentTimestamp = 0;
+    private final ScheduledExecutorService timer; // Heartbeats, gap checks and batch flushes
+
+    // Guarded by sendLock
+    private final List<GameMove> outbox = new ArrayList<>(); // Moves waiting to be sent, in order
+    private String[] outboxPlayers;
+    private boolean flushScheduled = false;
+    private volatile String currentGameID;  // The current game, for heartbeats
+    private volatile String[] gamePlayers;  // Players of the current game, for heartbeats
+    private final Map<String, SequenceQueue<GameMessage>> sequenceQueues = new ConcurrentHashMap<>(); // Game ID -> queue
+    private final Map<String, List<GameMessage>> heldMoves = new HashMap<>(); // Game ID -> moves before it started; guarded by itself
+    private volatile CrissCrossPuzzleServer sequencer; // Looked up on first use
+    private final AtomicLong messagesSent = new AtomicLong(); // Remote calls made, for monitoring
+
+    // A remote call made to one player's receiver
+    private interface PeerCall {
+        void call(ReceiverInterface peer) throws Exception;
+    }
 
     // Interface for applying received game updates
     public interface GameUpdateHandler extends Serializable {
         void applyGameUpdate(Game game);
     }
 
+    // Interface for applying received moves to the local game
+    public interface MoveHandler extends Serializable {
+        void applyMove(GameMove move);
+    }
+
     private static GameUpdateHandler gameHandler = null;
+    private static MoveHandler moveHandler = null;
 
     public static void registerGameHandler(GameUpdateHandler handler) {
         gameHandler = handler;
     }
 
+    public static void registerMoveHandler(MoveHandler handler) {
+        moveHandler = handler;
+    }
+
     public ReceiverImpl(String name) throws RemoteException {
+        this(name, Ordering.fromProperty());
+    }
+
+    public ReceiverImpl(String name, Ordering ordering) throws RemoteException {
         super();
         this.processName = name;
+        this.ordering = ordering;
         this.clock = new LamportClock();
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "receiver-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (ordering == Ordering.SEQUENCER) {
+            timer.scheduleWithFixedDelay(this::fillGaps, RETRANSMIT_MS, RETRANSMIT_MS / 2 + 1, TimeUnit.MILLISECONDS);
+        } else if (HEARTBEAT_MS > 0) {
+            timer.scheduleWithFixedDelay(this::sendHeartbeat, HEARTBEAT_MS, HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+        }
     }
 
-    // GameMessage used in the priority queue
-    public static class GameMessage implements Comparable<GameMessage>, Serializable {
-        private final Game game;
-        private final String senderID;
-        private final int timestamp;
+    // GameMessage used in the priority queue; carries either a whole Game or a single move.
+    // Written by hand like Game and GameMove, without class descriptors.
+    public static class GameMessage implements Comparable<GameMessage>, Externalizable {
+        private Game game;
+        private GameMove move;
+        private String senderID;
+        private int timestamp;
+
+        // For deserialization only
+        public GameMessage() {
+        }
 
         public GameMessage(Game game, String senderID, int timestamp) {
             this.game = game;
+            this.move = null;
             this.senderID = senderID;
             this.timestamp = timestamp;
         }
 
+        public GameMessage(GameMove move) {
+            this.game = null;
+            this.move = move;
+            this.senderID = move.getPlayer();
+            this.timestamp = move.getTimestamp();
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeBoolean(move != null);
+            if (move != null) {
+                move.writeExternal(out);
+                return;
+            }
+            Wire.writeString(out, senderID);
+            out.writeInt(timestamp);
+            out.writeBoolean(game != null);
+            if (game != null) {
+                game.writeExternal(out);
+            }
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            if (in.readBoolean()) {
+                move = new GameMove();
+                move.readExternal(in);
+                senderID = move.getPlayer();
+                timestamp = move.getTimestamp();
+                return;
+            }
+            senderID = Wire.readString(in);
+            timestamp = in.readInt();
+            if (in.readBoolean()) {
+                game = new Game();
+                game.readExternal(in);
+            }
+        }
+
         public Game getGame() { return game; }
+        public GameMove getMove() { return move; }
         public String getSenderID() { return senderID; }
         public int getTimestamp() { return timestamp; }
 
@@ -77,7 +227,7 @@ public class ReceiverImpl extends UnicastRemoteObject implements ReceiverInterfa
 
         @Override
         public String toString() {
-            return "[" + senderID + " @ " + timestamp + "] Game";
+            return "[" + senderID + " @ " + timestamp + "] " + (move != null ? "Move " + move.getGuess() : "Game");
         }
     }
 
@@ -86,9 +236,8 @@ public class ReceiverImpl extends UnicastRemoteObject implements ReceiverInterfa
         * 
         * Performs the following steps:
         * 1. Updates the local Lamport clock using the received timestamp.
-        * 2. Records the latest timestamp received from the sender.
-        * 3. Adds the incoming game message to the local priority queue.
-        * 4. Attempts to deliver all safe-to-process messages in order by calling deliverGameMessagesInOrder().
+        * 2. Adds the incoming game message to the delivery queue, which records the sender's latest timestamp.
+        * 3. The queue delivers all safe-to-process messages in order through deliver().
         * 
         * @param game      The Game object received from the sender.
         * @param senderID  The ID of the sender process.
@@ -100,60 +249,114 @@ public class ReceiverImpl extends UnicastRemoteObject implements ReceiverInterfa
     @Override
     public boolean receiveGame(Game game, String senderID, int timestamp) throws RemoteException {
         clock.update(timestamp);                            //Updates to the sender timestamp + 1;
-        lastSeenTimestamps.put(senderID, timestamp);        // Keeps track of latest timestamp of each client nodes
-
-        gameQueue.add(new GameMessage(game, senderID, timestamp));  //Adds message to the back of the queue
         System.out.println("[" + processName + "] Received game from " + senderID + " @ " + timestamp);
 
-        deliverGameMessagesInOrder();
+        if (ordering == Ordering.SEQUENCER) {
+            deliver(new GameMessage(game, senderID, timestamp)); // Starts the game; moves are numbered from here
+        } else {
+            gameQueue(game.getGameID()).add(senderID, timestamp, new GameMessage(game, senderID, timestamp));
+        }
         return true;
     }
 
+    /**
+        * Handles a game pushed by the game server when its lobby fills. Nothing has been
+        * sent in the game yet, so it is handed to the gameHandler at once, outside the
+        * ordering of player messages.
+    */
+    @Override
+    public void receiveGameStart(Game game) throws RemoteException {
+        System.out.println("[" + processName + "] Game " + game.getGameID() + " started");
+        if (gameHandler != null) {
+            gameHandler.applyGameUpdate(game);
+        } else {
+            System.out.println("No game handler registered to start the game.");
+        }
+    }
 
     /**
-        * Processes and delivers game messages from the gameQueue in order, ensuring that messages are delivered 
-        * only when it is safe to do so. Messages are considered safe to deliver if all messages from other senders 
-        * have a higher timestamp than the current message. The function follows the Lamport Clock logic to ensure 
-        * proper message delivery order and synchronization across processes.
-        * 
-        * The function operates as follows:
-        * 1. It checks the first (head) message in the queue.
-        * 2. It verifies that all messages from other senders have a higher timestamp than the current message.
-        * 3. If it is safe to deliver (i.e., all conditions are satisfied), the message is delivered:
-        *    - The game update from the message is applied using the registered `gameHandler`.
-        *    - The message is removed from the queue after successful delivery.
-        * 4. If it is not safe to deliver, the function will exit and wait for further messages.
+        * Handles the receival of a single move from another client
+        * Same steps as receiveGame; the sender and timestamp are carried in the move.
+        * A move numbered by the sequencer goes to its game's SequenceQueue instead.
+        * A move for a game that is not the current one is held until it is (see connectPeers).
     */
-    private void deliverGameMessagesInOrder() {
-        while (!gameQueue.isEmpty()) {
-            GameMessage head = gameQueue.peek();
-
-            boolean safeToDeliver = true;
-            for (String sender : lastSeenTimestamps.keySet()) {
-                if (sender.equals(head.getSenderID())) continue;
-
-                int lastSeen = lastSeenTimestamps.getOrDefault(sender, -1);
-                if (lastSeen <= head.getTimestamp()) {
-                    safeToDeliver = false;
-                    break;
-                }
+    @Override
+    public boolean receiveMove(GameMove move) throws RemoteException {
+        if (move.getSequence() > 0) {
+            System.out.println("[" + processName + "] Received move from " + move.getPlayer() + " #" + move.getSequence());
+        } else {
+            clock.update(move.getTimestamp());
+            System.out.println("[" + processName + "] Received move from " + move.getPlayer() + " @ " + move.getTimestamp());
+        }
+
+        GameMessage message = new GameMessage(move);
+        synchronized (heldMoves) {
+            if (!move.getGameID().equals(currentGameID)) {
+                heldMoves.computeIfAbsent(move.getGameID(), id -> new ArrayList<>()).add(message);
+                return true;
             }
+        }
+        enqueue(message);
+        return true;
+    }
 
-            if (safeToDeliver) {
-                System.out.println("[" + processName + "] DELIVERED Game from " + head.getSenderID() + " @ " + head.getTimestamp());
+    // Adds a move to its game's queue, by sequence number or by timestamp.
+    private void enqueue(GameMessage message) {
+        GameMove move = message.getMove();
+        if (move.getSequence() > 0) {
+            sequenceQueue(move.getGameID()).add(move.getSequence(), message);
+        } else {
+            gameQueue(move.getGameID()).add(move.getPlayer(), move.getTimestamp(), message);
+        }
+    }
 
-                Game receivedGame = head.getGame();
 
-                if (gameHandler != null) {
-                    gameHandler.applyGameUpdate(receivedGame);
-                } else {
-                    System.out.println("No game handler registered to apply game update.");
-                }
+    /**
+        * Handles a batch of moves from one sender, in the order they were sent; each is
+        * received as if it had come on its own.
+    */
+    @Override
+    public boolean receiveMoves(List<GameMove> moves) throws RemoteException {
+        for (GameMove move : moves) {
+            receiveMove(move);
+        }
+        return true;
+    }
 
-                gameQueue.poll(); // remove from queue
+    /**
+        * Handles a heartbeat: the sender has nothing below this timestamp left to send, so
+        * queued messages waiting on it may now be delivered.
+        * The clock is not updated, a heartbeat carries nothing that later messages depend on,
+        * and answering heartbeats with heartbeats would keep an idle game busy.
+        * Heartbeats for a game that has not started here yet are not held: the queue only
+        * records the timestamp, and delivers nothing until the held moves are added.
+    */
+    @Override
+    public void receiveHeartbeat(String gameID, String senderID, int timestamp) throws RemoteException {
+        gameQueue(gameID).heartbeat(senderID, timestamp);
+    }
+
+    /**
+        * Delivers one game message; called by the game's queue in timestamp order, once every
+        * other sender has been seen with a higher timestamp.
+        * - A game update is applied using the registered `gameHandler`, a move using the `moveHandler`.
+        * - Our own messages are skipped, they were applied when sent.
+    */
+    private void deliver(GameMessage head) {
+        System.out.println("[" + processName + "] DELIVERED " + head);
+
+        if (head.getSenderID().equals(processName)) {
+            // Our own update, already applied when it was sent
+        } else if (head.getMove() != null) {
+            if (moveHandler != null) {
+                moveHandler.applyMove(head.getMove());
             } else {
-                break; // not ready yet
+                System.out.println("No move handler registered to apply move.");
             }
+        } else if (gameHandler != null) {
+            gameHandler.applyGameUpdate(head.getGame());
+        } else {
+            System.out.println("No game handler registered to apply game update.");
         }
     }
 
@@ -165,24 +368,368 @@ public class ReceiverImpl extends UnicastRemoteObject implements ReceiverInterfa
 
     @Override
     public void sendGame(String[] players, String senderID, Game game) throws RemoteException {
-        int timestamp = clock.tick();  //Updates current timestamp for sender
+        sendLock.lock();
+        try {
+            flushOutbox(); // Moves made before the game was sent go first
+            int timestamp = clock.tick();  //Updates current timestamp for sender
+
+            //Initializes player timestamps to -1 if no messages received
+            TotalOrderQueue<GameMessage> queue = gameQueue(game.getGameID());
+            for (String player : players) {
+                queue.expect(player);
+            }
+
+            broadcast(players, "Game", timestamp, target -> target.receiveGame(game, senderID, timestamp));
+            lastSentTimestamp = timestamp;
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    /**
+     * Same as sendGame for a single move: stamps it with the next timestamp (or has the
+     * sequencer number it) and sends it to every player in the game, together with any
+     * other moves made within the batch window.
+     */
+    @Override
+    public void sendMove(String[] players, String senderID, GameMove move) throws RemoteException {
+        GameMove sequenced = (ordering == Ordering.SEQUENCER) ? callSequencer(server -> server.sequenceMove(move)) : null;
+
+        sendLock.lock();
+        try {
+            if (outboxPlayers != null && !Arrays.equals(outboxPlayers, players)) {
+                flushOutbox(); // Moves of another game
+            }
+            if (sequenced != null) {
+                outbox.add(sequenced);
+            } else {
+                outbox.add(move.stamped(clock.tick()));
+                TotalOrderQueue<GameMessage> queue = gameQueue(move.getGameID());
+                for (String player : players) {
+                    queue.expect(player);
+                }
+            }
+            outboxPlayers = players;
+
+            if (BATCH_MS <= 0) {
+                flushOutbox();
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                timer.schedule(this::flushScheduled, BATCH_MS, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private void flushScheduled() {
+        sendLock.lock();
+        try {
+            flushScheduled = false;
+            flushOutbox();
+        } catch (RuntimeException e) {
+            System.err.println("Sending moves failed: " + e.getMessage()); // Keep the timer running
+        } finally {
+            sendLock.unlock();
+        }
+    }
 
-        //Initializes player timestamps to -1 if no messages received
+    // Sends the waiting moves to every player, one call each. Called holding sendLock.
+    private void flushOutbox() {
+        if (outbox.isEmpty()) return;
+
+        List<GameMove> batch = new ArrayList<>(outbox);
+        outbox.clear();
+        GameMove last = batch.get(batch.size() - 1);
+        int order = (last.getSequence() > 0) ? last.getSequence() : last.getTimestamp();
+        if (batch.size() == 1) {
+            broadcast(outboxPlayers, "move", order, target -> target.receiveMove(last));
+        } else {
+            broadcast(outboxPlayers, batch.size() + " moves", order, target -> target.receiveMoves(batch));
+        }
+        if (last.getSequence() == 0) {
+            lastSentTimestamp = last.getTimestamp();
+        }
+    }
+
+    /**
+     * Runs every heartbeat period. Sends our current timestamp to the players of the game if
+     * we have received anything since our last send; otherwise that send already covers
+     * everything the others may be waiting on. Skipped while a send is in progress or moves
+     * are waiting in the outbox, which will advance our timestamp at the other players anyway.
+     */
+    private void sendHeartbeat() {
+        String game = currentGameID;
+        String[] players = gamePlayers;
+        if (game == null || players == null || clock.getTime() <= lastSentTimestamp || !sendLock.tryLock()) {
+            return;
+        }
+        try {
+            if (!outbox.isEmpty()) {
+                return; // Those moves have lower timestamps and must arrive first; their flush covers us
+            }
+            int timestamp = clock.tick();
+            String[] others = Arrays.stream(players).filter(p -> !p.equals(processName)).toArray(String[]::new);
+            gameQueue(game).heartbeat(processName, timestamp);
+            broadcast(others, null, timestamp, target -> target.receiveHeartbeat(game, processName, timestamp));
+            lastSentTimestamp = timestamp;
+        } catch (RuntimeException e) {
+            System.err.println("Heartbeat failed: " + e.getMessage()); // Keep the schedule running
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    // Each game is ordered on its own, so players of an earlier game are not waited on.
+    private TotalOrderQueue<GameMessage> gameQueue(String gameID) {
+        return gameQueues.computeIfAbsent(gameID, id -> new TotalOrderQueue<>(this::deliver));
+    }
+
+    private SequenceQueue<GameMessage> sequenceQueue(String gameID) {
+        return sequenceQueues.computeIfAbsent(gameID, id -> new SequenceQueue<>(this::deliver));
+    }
+
+    /**
+     * Runs every half retransmit period with sequencer ordering. For each game with a gap
+     * that has lasted a retransmit period, fetches the missing moves from the sequencer.
+     * The current game is also asked for anything new once it has been quiet for a
+     * retransmit period, in case its last moves were lost with nothing after them.
+     */
+    private void fillGaps() {
+        long retransmitNanos = TimeUnit.MILLISECONDS.toNanos(RETRANSMIT_MS);
+        for (Map.Entry<String, SequenceQueue<GameMessage>> entry : sequenceQueues.entrySet()) {
+            int missing = entry.getValue().missingSince(retransmitNanos);
+            if (missing < 0 && entry.getKey().equals(currentGameID)) {
+                missing = entry.getValue().idleSince(retransmitNanos);
+            }
+            if (missing < 0) continue;
+            int from = missing;
+            try {
+                List<GameMove> moves = callSequencer(server -> server.getMovesSince(entry.getKey(), from));
+                if (!moves.isEmpty()) {
+                    System.out.println("[" + processName + "] Fetched " + moves.size() + " moves from #" + from);
+                }
+                for (GameMove move : moves) {
+                    entry.getValue().add(move.getSequence(), new GameMessage(move));
+                }
+            } catch (Exception e) {
+                System.err.println("Could not fetch missing moves: " + e.getMessage()); // Tried again next time
+            }
+        }
+    }
+
+    // A remote call made to the sequencer
+    private interface SequencerCall<T> {
+        T call(CrissCrossPuzzleServer server) throws RemoteException;
+    }
+
+    // Calls the sequencer through the cached stub, looking it up again once if the call fails.
+    private <T> T callSequencer(SequencerCall<T> call) throws RemoteException {
+        CrissCrossPuzzleServer server = sequencer;
+        for (int attempt = 0; ; attempt++) {
+            if (server == null) {
+                try {
+                    server = (CrissCrossPuzzleServer) Naming.lookup(SERVER_URL);
+                } catch (NotBoundException | java.net.MalformedURLException e) {
+                    throw new RemoteException("Sequencer not available", e);
+                }
+                sequencer = server;
+            }
+            try {
+                messagesSent.incrementAndGet();
+                return call.call(server);
+            } catch (RemoteException e) {
+                sequencer = null;
+                server = null;
+                if (attempt > 0) throw e;
+            }
+        }
+    }
+
+    /**
+     * Makes the call on every player's receiver at once, each on that player's send thread
+     * behind anything still being sent to it, and waits until each one has answered or timed
+     * out. Logs how long each player took (not for heartbeats, where what is null); a player
+     * that fails is reported and skipped. A player that times out is still sent to, but is
+     * not waited on again until one of its sends completes, which is then logged with how
+     * long it took.
+     */
+    private void broadcast(String[] players, String what, int timestamp, PeerCall call) {
+        String label = (what != null) ? what : "heartbeat";
+        Map<String, Future<Long>> sends = new LinkedHashMap<>();
         for (String player : players) {
-            lastSeenTimestamps.putIfAbsent(player, -1);
+            if (failedPeers.contains(player)) continue;
+            Future<Long> send = sendQueue(player).submit(() -> {
+                long start = System.nanoTime();
+                sendToPeer(player, call);
+                long nanos = System.nanoTime() - start;
+                if (slowPeers.remove(player)) {
+                    System.out.printf("[%s] %s caught up, %s @ %d took %.1f ms%n", processName, player, label, timestamp, nanos / 1e6);
+                }
+                return nanos;
+            });
+            if (!slowPeers.contains(player)) {
+                sends.put(player, send);
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SEND_TIMEOUT_MS);
+        for (Map.Entry<String, Future<Long>> send : sends.entrySet()) {
+            String player = send.getKey();
+            try {
+                long nanos = send.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (what != null) {
+                    System.out.printf("[%s] Sent %s to %s @ %d (%.1f ms)%n", processName, what, player, timestamp, nanos / 1e6);
+                }
+            } catch (TimeoutException e) {
+                slowPeers.add(player);
+                System.err.println("Timed out sending " + label + " to " + player + " after " + SEND_TIMEOUT_MS
+                    + " ms; later messages queue behind it");
+            } catch (ExecutionException e) {
+                System.err.println("Failed to send " + label + " to " + player + ": " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return; // Sends still running finish on their own threads, in order
+            }
+        }
+    }
+
+    // The player's send thread, started on first use. Calls to a player run on it one at a
+    // time, in the order they were submitted.
+    private ExecutorService sendQueue(String player) {
+        return sendQueues.computeIfAbsent(player, p -> Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "receiver-send-" + p);
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    // Calls a player on its send thread, dropping it from the game if its receiver is gone:
+    // not bound in the registry, or refusing connections on more than one send in a row.
+    private void sendToPeer(String player, PeerCall call) throws Exception {
+        try {
+            callPeer(player, call);
+            connectFailures.remove(player);
+        } catch (NotBoundException e) {
+            dropPeer(player);
+            throw e;
+        } catch (java.rmi.ConnectException e) {
+            if (connectFailures.merge(player, 1, Integer::sum) >= CONNECT_FAILURES_TO_DROP) {
+                dropPeer(player);
+            }
+            throw e;
+        }
+    }
+
+    // Stops sending to a player whose receiver is gone; anything queued for it is dropped.
+    private void dropPeer(String player) {
+        System.err.println("[" + processName + "] " + player + " cannot be reached; sending it nothing more this game");
+        failedPeers.add(player);
+        slowPeers.remove(player);
+        connectFailures.remove(player);
+        peers.remove(player);
+        ExecutorService queue = sendQueues.remove(player);
+        if (queue != null) {
+            queue.shutdownNow();
+        }
+    }
+
+    /**
+     * Looks up the receivers of everyone in a new game, replacing the stubs of the last game,
+     * and makes delivery wait on all of them, including those that have not sent yet.
+     * Players that cannot be found yet are looked up again on the first send to them.
+     * Players dropped in the last game are sent to again. Messages still queued for earlier
+     * games are discarded.
+     * Moves of this game that arrived before it started here are then queued, lowest
+     * timestamp first, so none can be delivered ahead of a lower one still held; moves that
+     * arrive meanwhile wait for them.
+     */
+    public void connectPeers(String gameID, String[] players) {
+        peers.clear();
+        failedPeers.clear();
+        slowPeers.clear();
+        connectFailures.clear();
+        gameQueues.keySet().removeIf(id -> !id.equals(gameID));
+        sequenceQueues.keySet().removeIf(id -> !id.equals(gameID));
+        gamePlayers = players.clone();
+        TotalOrderQueue<GameMessage> queue = gameQueue(gameID);
+        if (ordering == Ordering.SEQUENCER) {
+            sequenceQueue(gameID); // Polled for lost moves even before any arrive
+        } else {
+            for (String player : players) {
+                queue.expect(player); // Hold messages until every player has been heard from
+            }
+        }
+
+        synchronized (heldMoves) {
+            List<GameMessage> held = heldMoves.remove(gameID);
+            heldMoves.clear(); // Moves of other games are not wanted any more
+            currentGameID = gameID;
+            if (held != null) {
+                Collections.sort(held);
+                for (GameMessage message : held) {
+                    enqueue(message);
+                }
+            }
         }
 
         for (String player : players) {
             try {
-                ReceiverInterface target = (ReceiverInterface) Naming.lookup("rmi://localhost/ReceiverInterface/" + player);
-                target.receiveGame(game, senderID, timestamp);
-                System.out.println("[" + processName + "] Sent Game to " + player + " @ " + timestamp);
+                lookupPeer(player);
             } catch (Exception e) {
-                System.err.println("Failed to send Game to " + player + ": " + e.getMessage());
+                System.err.println("Could not look up " + player + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops taking part in a game that is over for this player: no more heartbeats or
+     * requests for missed moves are sent for it.
+     */
+    public void leaveGame(String gameID) {
+        synchronized (heldMoves) {
+            if (gameID.equals(currentGameID)) {
+                currentGameID = null;
+                gamePlayers = null;
+            }
+        }
+    }
+
+    // Number of registry lookups made for player stubs so far.
+    public long getPeerLookups() {
+        return peerLookups.get();
+    }
+
+    // Number of remote calls made to players and the sequencer so far, heartbeats included.
+    public long getMessagesSent() {
+        return messagesSent.get();
+    }
+
+    // Calls a player through the cached stub; a stub that fails is dropped and the call
+    // retried once with a fresh lookup, in case the player's receiver was re-bound.
+    private void callPeer(String player, PeerCall call) throws Exception {
+        ReceiverInterface cached = peers.get(player);
+        ReceiverInterface target = (cached != null) ? cached : lookupPeer(player);
+        try {
+            messagesSent.incrementAndGet();
+            call.call(target);
+        } catch (RemoteException e) {
+            peers.remove(player, target);
+            if (cached == null) {
+                throw e;
             }
+            messagesSent.incrementAndGet();
+            call.call(lookupPeer(player));
         }
     }
 
+    private ReceiverInterface lookupPeer(String player) throws Exception {
+        peerLookups.incrementAndGet();
+        ReceiverInterface stub = (ReceiverInterface) Naming.lookup("rmi://localhost/ReceiverInterface/" + player);
+        peers.put(player, stub);
+        return stub;
+    }
+
     @Override
     public void doEvent(String event, char[][] grid) throws RemoteException {
         int newTimestamp = clock.tick();
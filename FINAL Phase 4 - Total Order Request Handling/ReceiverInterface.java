@@ -5,7 +5,9 @@
 
  import java.rmi.Remote;
  import java.rmi.RemoteException;
+ import java.util.List;
  import game.Game;
+ import game.GameMove;
  
  /**
   * Receiver interface for handling incoming messages.
@@ -15,5 +17,18 @@
      void doEvent(String event, char[][] grid) throws RemoteException;
 
      boolean receiveGame(Game game, String senderID, int timestamp) throws RemoteException;
+
+     // A multiplayer game that has just started, pushed by the game server when its lobby fills
+     void receiveGameStart(Game game) throws RemoteException;
      void sendGame(String[] players, String senderID, Game game) throws RemoteException;
+
+     // A single guess, for players that already have the game
+     boolean receiveMove(GameMove move) throws RemoteException;
+     void sendMove(String[] players, String senderID, GameMove move) throws RemoteException;
+
+     // Several moves from one sender in the order they were made, each with its own timestamp
+     boolean receiveMoves(List<GameMove> moves) throws RemoteException;
+
+     // No content; tells the receiver the sender will send nothing below this timestamp in the game
+     void receiveHeartbeat(String gameID, String senderID, int timestamp) throws RemoteException;
  }
@@ -0,0 +1,94 @@
+/*
+ * ReceiverTest
+ *
+ * Plays multiplayer games on receivers in this JVM, with Lamport ordering:
+ * - two games in a row on one receiver. Players of the first game send nothing in the second,
+ *   so if their old timestamps were still waited on, the second game's moves would never be
+ *   delivered;
+ * - a game whose moves reach a player before the game does, as when the game server has not
+ *   pushed it to that player yet. The moves must wait for the game, then all be delivered.
+ * Starts its own RMI registry.
+ *
+ *   java ReceiverTest
+ * */
+
+import java.io.*;
+import java.rmi.Naming;
+import java.rmi.registry.LocateRegistry;
+import java.util.*;
+import game.GameMove;
+
+public class ReceiverTest {
+
+    private static final long DELIVERY_TIMEOUT_MS = 5000;
+    private static final int SECOND_GAME_MOVES = 50;
+    private static final int EARLY_MOVES = 5;
+    private static final long GAME_START_DELAY_MS = 300;
+
+    private static final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+
+    public static void main(String[] args) throws Exception {
+        // The receivers log every message
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        LocateRegistry.createRegistry(1099);
+        ReceiverImpl.registerMoveHandler(move -> delivered.add(move.getGameID() + ":" + move.getGuess()));
+
+        Map<String, ReceiverImpl> receivers = new HashMap<>();
+        for (String name : new String[] { "alice", "bob", "carol", "dave", "erin" }) {
+            ReceiverImpl receiver = new ReceiverImpl(name, ReceiverImpl.Ordering.LAMPORT);
+            Naming.rebind("rmi://localhost/ReceiverInterface/" + name, receiver);
+            receivers.put(name, receiver);
+        }
+
+        // First game: bob and carol each make a move; alice and the other of them deliver it
+        String[] firstPlayers = { "alice", "bob", "carol" };
+        for (String player : firstPlayers) {
+            receivers.get(player).connectPeers("game-1", firstPlayers);
+        }
+        receivers.get("bob").sendMove(firstPlayers, "bob", new GameMove("game-1", "bob", "e", 5, "In-progress"));
+        receivers.get("carol").sendMove(firstPlayers, "carol", new GameMove("game-1", "carol", "a", 5, "In-progress"));
+        boolean first = awaitDeliveries(4);
+        out.println("First game, 2 moves delivered to 2 players each: " + (first ? "PASS" : "FAIL " + delivered));
+
+        // Second game on the same receiver for alice, with a player who was not in the first
+        delivered.clear();
+        String[] secondPlayers = { "alice", "dave" };
+        for (String player : secondPlayers) {
+            receivers.get(player).connectPeers("game-2", secondPlayers);
+        }
+        // Enough moves for dave's timestamps to pass the last ones bob and carol sent
+        for (int n = 0; n < SECOND_GAME_MOVES; n++) {
+            receivers.get("dave").sendMove(secondPlayers, "dave", new GameMove("game-2", "dave", "move" + n, 5, "In-progress"));
+        }
+        boolean second = awaitDeliveries(SECOND_GAME_MOVES);
+        out.println("Second game, " + SECOND_GAME_MOVES + " of dave's moves delivered to alice: "
+            + (second ? "PASS" : "FAIL, " + delivered.size() + " delivered"));
+
+        // Third game: alice moves before erin has the game
+        delivered.clear();
+        String[] thirdPlayers = { "alice", "erin" };
+        receivers.get("alice").connectPeers("game-3", thirdPlayers);
+        for (int n = 0; n < EARLY_MOVES; n++) {
+            receivers.get("alice").sendMove(thirdPlayers, "alice", new GameMove("game-3", "alice", "early" + n, 5, "In-progress"));
+        }
+        Thread.sleep(GAME_START_DELAY_MS);
+        int beforeStart = delivered.size();
+        receivers.get("erin").connectPeers("game-3", thirdPlayers);
+        boolean third = beforeStart == 0 && awaitDeliveries(EARLY_MOVES);
+        out.println("Third game, " + EARLY_MOVES + " moves sent before erin had the game: "
+            + (third ? "PASS" : "FAIL, " + beforeStart + " delivered before the game, " + delivered.size() + " in all"));
+
+        // The RMI objects keep the JVM alive
+        System.exit(first && second && third ? 0 : 1);
+    }
+
+    private static boolean awaitDeliveries(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DELIVERY_TIMEOUT_MS;
+        while (delivered.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return delivered.size() >= expected;
+    }
+}
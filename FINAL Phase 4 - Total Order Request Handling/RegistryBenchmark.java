@@ -0,0 +1,260 @@
+/*
+ * RegistryBenchmark
+ *
+ * Stress test for the game server's GameRegistry, in two parts.
+ *
+ * 1. The registry alone: thousands of games are created, updated and removed when they
+ *    finish, from many threads at once. Each update rebuilds a small grid under the game's
+ *    lock. Compared with one lock around a plain map (GlobalLockRegistry), the simplest
+ *    safe alternative.
+ * 2. The whole server: thousands of games run through CrissCrossPuzzleServerImpl at once,
+ *    two threads guessing in each game, then the games are ended. Checks that no guess was
+ *    lost and that every game left the registry.
+ *
+ * Run from a directory with words.txt (and the classes on the classpath):
+ *   java RegistryBenchmark [games] [threads]
+ * Options: -Dbenchmark.samples=<n> (default 5), -Dgame.registry.shards=<n> (default 16),
+ * -Dbenchmark.blockMicros=<n> (default 0): time each move also spends blocked, as the
+ * server's actions do writing their log lines.
+ * */
+
+import java.io.*;
+import java.rmi.RemoteException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class RegistryBenchmark {
+
+    private static final int SAMPLES = Integer.getInteger("benchmark.samples", 5);
+    private static final int MOVES_PER_GAME = 20;
+    private static final int GUESSES_PER_PLAYER = 10;
+    private static final long BLOCK_NANOS = Long.getLong("benchmark.blockMicros", 0) * 1000;
+
+    private static PrintStream out;
+
+    // The registry operations the benchmark uses
+    private interface Registry {
+        GameState createIfAbsent(String gameID) throws RemoteException;
+        Integer withGame(String gameID, GameRegistry.GameAction<GameState, Integer> action) throws RemoteException;
+        void remove(String gameID);
+        int size();
+    }
+
+    // A stand-in game: a grid rebuilt from its guesses on every move, like updateUserGrid
+    private static class GameState {
+        final char[][] finishedGrid = new char[10][17];
+        final char[][] playerGrid = new char[10][17];
+        int moves;
+
+        GameState() {
+            for (char[] row : finishedGrid) {
+                Arrays.fill(row, 'A');
+            }
+        }
+
+        int move() {
+            char guessed = (char) ('A' + moves % 26);
+            for (int y = 0; y < finishedGrid.length; y++) {
+                for (int x = 0; x < finishedGrid[y].length; x++) {
+                    playerGrid[y][x] = (finishedGrid[y][x] <= guessed) ? finishedGrid[y][x] : '-';
+                }
+            }
+            if (BLOCK_NANOS > 0) {
+                LockSupport.parkNanos(BLOCK_NANOS);
+            }
+            return ++moves;
+        }
+    }
+
+    private static class ShardedRegistry implements Registry {
+        private final GameRegistry<GameState> games = new GameRegistry<>(
+            Integer.getInteger("game.registry.shards", GameRegistry.DEFAULT_SHARDS));
+
+        @Override
+        public GameState createIfAbsent(String gameID) throws RemoteException {
+            return games.createIfAbsent(gameID, GameState::new);
+        }
+
+        @Override
+        public Integer withGame(String gameID, GameRegistry.GameAction<GameState, Integer> action) throws RemoteException {
+            return games.withGame(gameID, action);
+        }
+
+        @Override
+        public void remove(String gameID) {
+            games.remove(gameID);
+        }
+
+        @Override
+        public int size() {
+            return games.size();
+        }
+    }
+
+    // One lock for every game
+    private static class GlobalLockRegistry implements Registry {
+        private final Map<String, GameState> games = new HashMap<>();
+
+        @Override
+        public synchronized GameState createIfAbsent(String gameID) {
+            return games.computeIfAbsent(gameID, id -> new GameState());
+        }
+
+        @Override
+        public synchronized Integer withGame(String gameID, GameRegistry.GameAction<GameState, Integer> action) throws RemoteException {
+            GameState state = games.get(gameID);
+            return (state == null) ? null : action.apply(state);
+        }
+
+        @Override
+        public synchronized void remove(String gameID) {
+            games.remove(gameID);
+        }
+
+        @Override
+        public synchronized int size() {
+            return games.size();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+
+        // The server logs every call; keep that out of the results
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        out.printf("Registry: %d games x %d moves, median of %d runs%n", games, MOVES_PER_GAME, SAMPLES);
+        out.printf("%-8s %-14s %12s %14s%n", "threads", "registry", "ms", "moves/s");
+        for (int count : new int[] { 1, 4, threads }) {
+            reportRegistry(count, "global lock", games, GlobalLockRegistry::new);
+            reportRegistry(count, "GameRegistry", games, ShardedRegistry::new);
+        }
+
+        out.println();
+        stressServer(Math.min(games, 2000), threads);
+
+        // The RMI objects keep the JVM alive
+        System.exit(0);
+    }
+
+    private static void reportRegistry(int threads, String name, int games, Callable<Registry> factory) throws Exception {
+        runRegistry(threads, games, factory.call()); // Warm-up
+        double[] millis = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            millis[i] = runRegistry(threads, games, factory.call());
+        }
+        Arrays.sort(millis);
+        double median = millis[SAMPLES / 2];
+        out.printf("%-8d %-14s %12.1f %14.0f%n", threads, name, median, games * (double) MOVES_PER_GAME / (median / 1000));
+    }
+
+    // Every game gets MOVES_PER_GAME moves from random threads and is removed after the last.
+    private static double runRegistry(int threads, int games, Registry registry) throws Exception {
+        List<String> moves = new ArrayList<>(games * MOVES_PER_GAME);
+        for (int game = 0; game < games; game++) {
+            for (int move = 0; move < MOVES_PER_GAME; move++) {
+                moves.add("game-" + game);
+            }
+        }
+        Collections.shuffle(moves, new Random(42));
+
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> done = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            done.add(pool.submit(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < moves.size()) {
+                    String gameID = moves.get(index);
+                    registry.createIfAbsent(gameID);
+                    Integer made = registry.withGame(gameID, GameState::move);
+                    if (made != null && made == MOVES_PER_GAME) {
+                        registry.remove(gameID); // Finished
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : done) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        // A move for a game that was already removed creates it again, so a few may be left
+        if (registry.size() > games / 10) {
+            throw new IllegalStateException(registry.size() + " games left in the registry");
+        }
+        return elapsed / 1e6;
+    }
+
+    // Runs games through the puzzle server, two players guessing in each at the same time.
+    private static void stressServer(int games, int threads) throws Exception {
+        CrissCrossPuzzleServerImpl server = new CrissCrossPuzzleServerImpl(new WordServerImpl());
+        out.printf("Server: %d games, 2 players x %d guesses each, %d threads%n", games, GUESSES_PER_PLAYER, threads);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<String>> started = new ArrayList<>();
+        for (int game = 0; game < games; game++) {
+            int words = 2 + game % 9;
+            started.add(pool.submit(() -> server.startGame("host", words, 10, null)));
+        }
+        List<String> gameIDs = new ArrayList<>();
+        for (Future<String> future : started) {
+            gameIDs.add(future.get());
+        }
+        long startedNanos = System.nanoTime() - start;
+
+        // Guesses that can never finish a game: a letter no grid uses and a word no puzzle has
+        Map<String, Integer> livesBefore = new HashMap<>();
+        for (String gameID : gameIDs) {
+            livesBefore.put(gameID, server.getGameState(gameID).getLives());
+        }
+        List<Future<?>> guessed = new ArrayList<>();
+        long guessStart = System.nanoTime();
+        for (String gameID : gameIDs) {
+            for (int player = 0; player < 2; player++) {
+                guessed.add(pool.submit(() -> {
+                    CrosswordGameState state = server.getGameState(gameID);
+                    for (int i = 0; i < GUESSES_PER_PLAYER; i++) {
+                        server.updateGuess(state, (i % 2 == 0) ? "#" : "#####");
+                    }
+                    return null;
+                }));
+            }
+        }
+        for (Future<?> future : guessed) {
+            future.get();
+        }
+        long guessNanos = System.nanoTime() - guessStart;
+
+        int lost = 0;
+        for (String gameID : gameIDs) {
+            CrosswordGameState state = server.getGameState(gameID);
+            int guesses = state.getLettersGuessedCount() + state.getWordsGuessedCount();
+            int livesUsed = livesBefore.get(gameID) - state.getLives();
+            if (guesses != 2 * GUESSES_PER_PLAYER || livesUsed != 2 * GUESSES_PER_PLAYER) {
+                lost++;
+            }
+        }
+        for (String gameID : gameIDs) {
+            server.endGame(gameID);
+        }
+        int left = 0;
+        for (String gameID : gameIDs) {
+            if (server.getGameState(gameID) != null) left++;
+        }
+        pool.shutdown();
+
+        out.printf("  %-24s %10.1f ms (%.0f games/s)%n", "start games", startedNanos / 1e6, games / (startedNanos / 1e9));
+        out.printf("  %-24s %10.1f ms (%.0f guesses/s)%n", "guess", guessNanos / 1e6,
+            games * 2.0 * GUESSES_PER_PLAYER / (guessNanos / 1e9));
+        out.printf("  %-24s %10d games with lost guesses, %d games left after ending%n", "check", lost, left);
+    }
+}
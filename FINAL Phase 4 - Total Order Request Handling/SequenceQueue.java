@@ -0,0 +1,104 @@
+/*
+ * SequenceQueue
+ *
+ * Holds the messages of one game until they can be delivered in sequence number order,
+ * for games ordered by a sequencer (see MoveSequencer). Numbers start at 1. A message is
+ * delivered as soon as every lower number has been, without waiting on other players.
+ * Duplicates, e.g. a retransmitted message that also arrived normally, are dropped.
+ *
+ * A message that arrives while a lower number is still missing opens a gap; the owner
+ * asks for the missing messages with missingSince() once the gap is old enough. A lost
+ * last message leaves no gap, so the owner also asks once the queue has been quiet for a
+ * while (idleSince()). Adding
+ * and delivering work as in TotalOrderQueue: any thread may add, one delivers at a time.
+ * */
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class SequenceQueue<T> {
+
+    private final Consumer<T> deliver;
+    private final AtomicInteger deliveryRequests = new AtomicInteger(); // Non-zero while a thread is delivering
+
+    // Guarded by "this"
+    private final TreeMap<Integer, T> pending = new TreeMap<>();
+    private int nextSequence = 1;
+    private long gapSince = 0; // System.nanoTime() when the current gap was seen, 0 if none
+    private long lastActivity = System.nanoTime(); // Last add or idle check
+
+    public SequenceQueue(Consumer<T> deliver) {
+        this.deliver = deliver;
+    }
+
+    // Queues a message and delivers whatever has become ready.
+    public void add(int sequence, T message) {
+        synchronized (this) {
+            lastActivity = System.nanoTime();
+            if (sequence < nextSequence || pending.putIfAbsent(sequence, message) != null) {
+                return; // Already delivered or already queued
+            }
+            if (pending.firstKey() != nextSequence) {
+                if (gapSince == 0) gapSince = System.nanoTime();
+                return;
+            }
+        }
+        deliverReady();
+    }
+
+    // The first missing sequence number if there has been a gap for at least the given
+    // time, otherwise -1.
+    public synchronized int missingSince(long nanos) {
+        if (gapSince == 0 || System.nanoTime() - gapSince < nanos) return -1;
+        return nextSequence;
+    }
+
+    // The next sequence number if nothing has been added for at least the given time,
+    // otherwise -1. The time is counted again from each check, so a quiet queue is
+    // reported once per period.
+    public synchronized int idleSince(long nanos) {
+        long now = System.nanoTime();
+        if (now - lastActivity < nanos) return -1;
+        lastActivity = now;
+        return nextSequence;
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private void deliverReady() {
+        if (deliveryRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int requests = 1;
+        do {
+            List<T> ready;
+            while (!(ready = drainReady()).isEmpty()) {
+                for (T message : ready) {
+                    try {
+                        deliver.accept(message);
+                    } catch (RuntimeException e) {
+                        // Skipped, so the messages behind it and later deliverers are not held up
+                        System.err.println("Could not deliver " + message + ": " + e);
+                    }
+                }
+            }
+            requests = deliveryRequests.addAndGet(-requests);
+        } while (requests != 0);
+    }
+
+    // Removes the run of messages that continues the sequence.
+    private synchronized List<T> drainReady() {
+        List<T> ready = new ArrayList<>();
+        while (!pending.isEmpty() && pending.firstKey() == nextSequence) {
+            ready.add(pending.pollFirstEntry().getValue());
+            nextSequence++;
+        }
+        if (!ready.isEmpty()) {
+            gapSince = pending.isEmpty() ? 0 : System.nanoTime(); // A new gap, if anything is left
+        }
+        return ready;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * TotalOrderQueue
+ *
+ * Holds messages until they can be delivered in Lamport timestamp order (ties broken by
+ * sender name). A message is delivered once every other known sender has been seen with a
+ * higher timestamp, so nothing earlier can still arrive from them.
+ *
+ * The last timestamp seen from each sender is also counted in a sorted multiset, so the
+ * lowest one is read off the front instead of rescanning every sender for every message;
+ * each add and delivery costs O(log n). Messages may be added from any number of threads;
+ * the only lock is a short one around the queue itself. Delivery runs on one thread at a
+ * time, in order: whichever thread finds no delivery running delivers everything that is
+ * ready, including messages other threads add meanwhile, and the others return at once.
+ * */
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class TotalOrderQueue<T> {
+
+    private final Consumer<T> deliver;
+    private final AtomicInteger deliveryRequests = new AtomicInteger(); // Non-zero while a thread is delivering
+
+    // Guarded by "this"
+    private final PriorityQueue<Entry<T>> pending = new PriorityQueue<>();
+    private final Map<String, Integer> lastSeen = new HashMap<>();
+    private final TreeMap<Integer, Integer> lastSeenCounts = new TreeMap<>(); // timestamp -> senders at it
+
+    private static class Entry<T> implements Comparable<Entry<T>> {
+        final String sender;
+        final int timestamp;
+        final T message;
+
+        Entry(String sender, int timestamp, T message) {
+            this.sender = sender;
+            this.timestamp = timestamp;
+            this.message = message;
+        }
+
+        @Override
+        public int compareTo(Entry<T> other) {
+            int timeCompare = Integer.compare(this.timestamp, other.timestamp);
+            return (timeCompare != 0) ? timeCompare : this.sender.compareTo(other.sender);
+        }
+    }
+
+    public TotalOrderQueue(Consumer<T> deliver) {
+        this.deliver = deliver;
+    }
+
+    // Registers a sender that has not been heard from yet; nothing is delivered past
+    // timestamp -1 until it is.
+    public void expect(String sender) {
+        synchronized (this) {
+            if (lastSeen.containsKey(sender)) return;
+            setLastSeen(sender, -1);
+        }
+    }
+
+    // Queues a message and delivers whatever has become ready.
+    public void add(String sender, int timestamp, T message) {
+        synchronized (this) {
+            advance(sender, timestamp);
+            pending.add(new Entry<>(sender, timestamp, message));
+            if (!hasReady()) return;
+        }
+        deliverReady();
+    }
+
+    // Records that a sender will send nothing below this timestamp any more, without a
+    // message, and delivers whatever that makes ready.
+    public void heartbeat(String sender, int timestamp) {
+        synchronized (this) {
+            advance(sender, timestamp);
+            if (!hasReady()) return;
+        }
+        deliverReady();
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    // Delivers ready messages in order. The first thread to ask becomes the deliverer; a
+    // thread that asks while delivery is running only leaves a request, which makes the
+    // deliverer check the queue once more before it stops.
+    private void deliverReady() {
+        if (deliveryRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int requests = 1;
+        do {
+            List<T> ready;
+            while (!(ready = drainReady()).isEmpty()) {
+                for (T message : ready) {
+                    try {
+                        deliver.accept(message);
+                    } catch (RuntimeException e) {
+                        // Skipped, so the messages behind it and later deliverers are not held up
+                        System.err.println("Could not deliver " + message + ": " + e);
+                    }
+                }
+            }
+            requests = deliveryRequests.addAndGet(-requests);
+        } while (requests != 0);
+    }
+
+    // Removes every message that is ready, in delivery order.
+    private synchronized List<T> drainReady() {
+        if (!hasReady()) return Collections.emptyList();
+
+        List<T> ready = new ArrayList<>();
+        do {
+            ready.add(pending.poll().message);
+        } while (hasReady());
+        return ready;
+    }
+
+    private synchronized boolean hasReady() {
+        Entry<T> head = pending.peek();
+        return head != null && lowestOtherLastSeen(head.sender) > head.timestamp;
+    }
+
+    // Records a timestamp from a sender; timestamps arriving out of order never move it back.
+    private void advance(String sender, int timestamp) {
+        Integer previous = lastSeen.get(sender);
+        if (previous == null || timestamp > previous) {
+            setLastSeen(sender, timestamp);
+        }
+    }
+
+    private void setLastSeen(String sender, int timestamp) {
+        Integer previous = lastSeen.put(sender, timestamp);
+        if (previous != null) {
+            lastSeenCounts.computeIfPresent(previous, (k, count) -> count == 1 ? null : count - 1);
+        }
+        lastSeenCounts.merge(timestamp, 1, Integer::sum);
+    }
+
+    // Lowest last-seen timestamp among all senders except the given one.
+    private int lowestOtherLastSeen(String sender) {
+        Map.Entry<Integer, Integer> lowest = lastSeenCounts.firstEntry();
+        if (lowest == null) return Integer.MAX_VALUE;
+
+        Integer own = lastSeen.get(sender);
+        if (own != null && own.equals(lowest.getKey()) && lowest.getValue() == 1) {
+            // The sender itself holds the lowest value; use the next one up
+            Integer next = lastSeenCounts.higherKey(lowest.getKey());
+            return (next == null) ? Integer.MAX_VALUE : next;
+        }
+        return lowest.getKey();
+    }
+}
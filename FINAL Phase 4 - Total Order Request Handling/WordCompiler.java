@@ -0,0 +1,38 @@
+/*
+ * WordCompiler
+ *
+ * Offline tool that compiles the word list into the binary words.bin format read by
+ * MappedWordIndex. WordServerImpl maps words.bin on startup when it is at least as new
+ * as words.txt, and falls back to loading words.txt otherwise.
+ *
+ * Usage: java WordCompiler [input words.txt] [output words.bin]
+ * */
+
+import java.io.*;
+import java.util.*;
+
+public class WordCompiler {
+
+    public static void main(String[] args) {
+        String input = args.length > 0 ? args[0] : "words.txt";
+        String output = args.length > 1 ? args[1] : "words.bin";
+
+        try {
+            List<String> words = new ArrayList<>();
+            try (BufferedReader br = new BufferedReader(new FileReader(input))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    words.add(line.trim());
+                }
+            }
+
+            WordIndex index = new WordIndex(words);
+            MappedWordIndex.write(index, output);
+            System.out.println("Compiled " + index.size() + " words from " + input + " into " + output
+                + " (" + new File(output).length() + " bytes).");
+        } catch (IOException e) {
+            System.err.println("Error compiling word list");
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * WordIndex
+ *
+ * Read-only, in-memory view of the word list. It is built once when words are
+ * loaded (and again after an edit) and is never modified afterwards, so RMI threads
+ * can query it concurrently without locking.
+ *
+ * Besides the word array and hash set it keeps posting lists per letter (words
+ * containing, starting with and ending with that letter) and two sort orders used
+ * to find longer prefixes and suffixes with a binary search. Words are also kept
+ * grouped by length with cumulative counts, so a word within a length range is a
+ * contiguous slice. A random match is picked by indexing into one of these arrays,
+ * nothing is allocated per query.
+ * */
+
+import java.util.*;
+
+public final class WordIndex implements WordLookup {
+
+    private static final int[] NO_WORDS = new int[0];
+
+    private final String[] words;        // Words in file order, used for random picks
+    private final Set<String> wordSet;   // Hash-based membership for checkWord
+
+    // Posting lists: letter -> positions in words[]
+    private final Map<Character, int[]> containing;
+    private final Map<Character, int[]> startingWith;
+    private final Map<Character, int[]> endingWith;
+
+    // Positions in words[] sorted by word, and by word read backwards
+    private final int[] prefixOrder;
+    private final int[] suffixOrder;
+
+    // Positions in words[] grouped by length; lengthOffsets[n] = number of words shorter than n
+    private final int[] lengthOrder;
+    private final int[] lengthOffsets;
+
+    public WordIndex(Collection<String> source) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String word : source) {
+            if (word != null && !word.isEmpty()) {
+                unique.add(word);
+            }
+        }
+        this.words = unique.toArray(new String[0]);
+        this.wordSet = new HashSet<>(unique);
+
+        Map<Character, List<Integer>> contains = new HashMap<>();
+        Map<Character, List<Integer>> starts = new HashMap<>();
+        Map<Character, List<Integer>> ends = new HashMap<>();
+        for (int i = 0; i < words.length; i++) {
+            String word = words[i];
+            for (int c = 0; c < word.length(); c++) {
+                // Only add each word once per letter
+                if (word.indexOf(word.charAt(c)) == c) {
+                    contains.computeIfAbsent(word.charAt(c), k -> new ArrayList<>()).add(i);
+                }
+            }
+            starts.computeIfAbsent(word.charAt(0), k -> new ArrayList<>()).add(i);
+            ends.computeIfAbsent(word.charAt(word.length() - 1), k -> new ArrayList<>()).add(i);
+        }
+        this.containing = toPostingLists(contains);
+        this.startingWith = toPostingLists(starts);
+        this.endingWith = toPostingLists(ends);
+
+        Integer[] order = new Integer[words.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> words[a].compareTo(words[b]));
+        this.prefixOrder = toIntArray(order);
+        Arrays.sort(order, (a, b) -> compareReversed(words[a], words[b]));
+        this.suffixOrder = toIntArray(order);
+
+        int maxLength = 0;
+        for (String word : words) {
+            maxLength = Math.max(maxLength, word.length());
+        }
+        int[] counts = new int[maxLength + 2];
+        for (String word : words) {
+            counts[word.length() + 1]++;
+        }
+        for (int n = 1; n < counts.length; n++) {
+            counts[n] += counts[n - 1];
+        }
+        this.lengthOffsets = counts.clone();
+        this.lengthOrder = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            lengthOrder[counts[words[i].length()]++] = i;
+        }
+    }
+
+    @Override
+    public boolean contains(String word) {
+        return wordSet.contains(word);
+    }
+
+    @Override
+    public int size() {
+        return words.length;
+    }
+
+    public String get(int position) {
+        return words[position];
+    }
+
+    // Returns a modifiable copy of the words, in their original order.
+    @Override
+    public List<String> toList() {
+        return new ArrayList<>(Arrays.asList(words));
+    }
+
+    /**
+     * Counts the words matching a getRandomWord query.
+     * m = contains, f = starts with, e = ends with
+     * Single letters use the posting lists, longer prefixes and suffixes a binary
+     * search, and longer "m" substrings fall back to a scan.
+     */
+    @Override
+    public int countMatching(String command, String key) {
+        int[] postings = postings(command, key);
+        if (postings != null) return postings.length;
+
+        switch (command) {
+            case "f": {
+                // Words sharing a prefix are contiguous in prefixOrder
+                int from = firstAtOrAfter(prefixOrder, key, false);
+                return firstNotMatching(prefixOrder, key, false, from) - from;
+            }
+            case "e": {
+                // Words sharing a suffix are contiguous in suffixOrder
+                int from = firstAtOrAfter(suffixOrder, key, true);
+                return firstNotMatching(suffixOrder, key, true, from) - from;
+            }
+            default: {
+                int matches = 0;
+                for (String word : words) {
+                    if (word.contains(key)) matches++;
+                }
+                return matches;
+            }
+        }
+    }
+
+    // Returns the n-th word matching the query, 0 <= n < countMatching(command, key).
+    @Override
+    public String getMatching(String command, String key, int n) {
+        int[] postings = postings(command, key);
+        if (postings != null) return words[postings[n]];
+
+        switch (command) {
+            case "f":
+                return words[prefixOrder[firstAtOrAfter(prefixOrder, key, false) + n]];
+            case "e":
+                return words[suffixOrder[firstAtOrAfter(suffixOrder, key, true) + n]];
+            default:
+                for (String word : words) {
+                    if (word.contains(key) && n-- == 0) return word;
+                }
+                throw new IndexOutOfBoundsException("No match number " + n + " for '" + key + "'");
+        }
+    }
+
+    // Counts the words whose length is between minLength and maxLength (inclusive).
+    @Override
+    public int countWithLength(int minLength, int maxLength) {
+        minLength = Math.max(minLength, 0);
+        maxLength = Math.min(maxLength, lengthOffsets.length - 2);
+        if (minLength > maxLength) return 0;
+
+        return lengthOffsets[maxLength + 1] - lengthOffsets[minLength];
+    }
+
+    // Returns the n-th word with a length in range, 0 <= n < countWithLength(minLength, maxLength).
+    @Override
+    public String getWithLength(int minLength, int maxLength, int n) {
+        return words[lengthOrder[lengthOffsets[Math.max(minLength, 0)] + n]];
+    }
+
+    // Arrays written out by MappedWordIndex.write; not to be modified.
+    String[] words() { return words; }
+    int[] prefixOrder() { return prefixOrder; }
+    int[] suffixOrder() { return suffixOrder; }
+    int[] lengthOrder() { return lengthOrder; }
+    int[] lengthOffsets() { return lengthOffsets; }
+    Map<Character, int[]> containing() { return containing; }
+    Map<Character, int[]> startingWith() { return startingWith; }
+    Map<Character, int[]> endingWith() { return endingWith; }
+
+    // Posting list for a single-letter query, or null when the key is longer.
+    private int[] postings(String command, String key) {
+        Map<Character, int[]> lists;
+        switch (command) {
+            case "m": lists = containing; break;
+            case "f": lists = startingWith; break;
+            case "e": lists = endingWith; break;
+            default: throw new IllegalArgumentException("Unknown command type: " + command);
+        }
+        if (key.length() != 1) return null;
+        return lists.getOrDefault(key.charAt(0), NO_WORDS);
+    }
+
+    // Binary search for the first word that sorts at or after the key
+    private int firstAtOrAfter(int[] order, String key, boolean reversed) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            String word = words[order[mid]];
+            int cmp = reversed ? compareReversed(word, key) : word.compareTo(key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Binary search for the end of the run of words starting (or ending) with the key
+    private int firstNotMatching(int[] order, String key, boolean reversed, int from) {
+        int low = from;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            String word = words[order[mid]];
+            boolean matches = reversed ? word.endsWith(key) : word.startsWith(key);
+            if (matches) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Compares two words as if both were written backwards
+    private static int compareReversed(String a, String b) {
+        int i = a.length() - 1;
+        int j = b.length() - 1;
+        while (i >= 0 && j >= 0) {
+            char ca = a.charAt(i--);
+            char cb = b.charAt(j--);
+            if (ca != cb) return ca - cb;
+        }
+        return a.length() - b.length();
+    }
+
+    private static Map<Character, int[]> toPostingLists(Map<Character, List<Integer>> lists) {
+        Map<Character, int[]> postings = new HashMap<>();
+        for (Map.Entry<Character, List<Integer>> entry : lists.entrySet()) {
+            List<Integer> positions = entry.getValue();
+            int[] array = new int[positions.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = positions.get(i);
+            }
+            postings.put(entry.getKey(), array);
+        }
+        return postings;
+    }
+
+    private static int[] toIntArray(Integer[] boxed) {
+        int[] array = new int[boxed.length];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = boxed[i];
+        }
+        return array;
+    }
+}
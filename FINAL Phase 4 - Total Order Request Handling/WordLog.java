@@ -0,0 +1,78 @@
+/*
+ * WordLog
+ *
+ * Append-only log of dictionary edits kept next to words.txt. Each line is one
+ * edit, "+word" for an add and "-word" for a remove, and is forced to disk before
+ * the edit is acknowledged. On startup the log is replayed over words.txt; once it
+ * grows long enough the WordServer writes a new words.txt and clears the log.
+ *
+ * Replaying an edit that is already part of words.txt is harmless, so a crash
+ * between writing the new snapshot and clearing the log loses nothing.
+ * */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class WordLog implements Closeable {
+    public static final char ADD = '+';
+    public static final char REMOVE = '-';
+
+    private final File file;
+    private FileOutputStream out;
+
+    public WordLog(String path) throws IOException {
+        this.file = new File(path);
+        dropTornTail();
+        this.out = new FileOutputStream(file, true);
+    }
+
+    // Appends one edit and waits until it is on disk.
+    public synchronized void append(char op, String word) throws IOException {
+        out.write((op + word + "\n").getBytes(StandardCharsets.UTF_8));
+        out.getFD().sync();
+    }
+
+    // Returns the logged edits in the order they were made, e.g. "+word".
+    public synchronized List<String> readEntries() throws IOException {
+        List<String> entries = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (!line.isEmpty() && (line.charAt(0) == ADD || line.charAt(0) == REMOVE)) {
+                    entries.add(line);
+                }
+            }
+        }
+        return entries;
+    }
+
+    // Drops every entry; called once the edits are part of a new snapshot.
+    public synchronized void clear() throws IOException {
+        out.close();
+        out = new FileOutputStream(file, false);
+        out.getFD().sync();
+    }
+
+    // A crash mid-append can leave a last line without its newline; cut it off.
+    private void dropTornTail() throws IOException {
+        if (!file.exists()) return;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long end = raf.length();
+            while (end > 0) {
+                raf.seek(end - 1);
+                if (raf.read() == '\n') break;
+                end--;
+            }
+            if (end < raf.length()) {
+                System.out.println("Dropping incomplete entry at end of " + file.getName());
+                raf.setLength(end);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
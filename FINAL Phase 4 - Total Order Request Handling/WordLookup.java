@@ -0,0 +1,59 @@
+/**
+ * The WordLookup interface defines the read-only queries the WordServerImpl runs against
+ * its word list. It is implemented by WordIndex (words held on the heap) and by
+ * MappedWordIndex (words read from a memory-mapped words.bin).
+ *
+ * Query commands follow WordServer.getRandomWord:
+ * m = contains
+ * f = starts with
+ * e = ends with
+*/
+
+import java.util.List;
+import java.util.Random;
+
+public interface WordLookup {
+    boolean contains(String word);
+    int size();
+
+    // Returns a modifiable copy of every word.
+    List<String> toList();
+
+    // Counts the words matching a getRandomWord query.
+    int countMatching(String command, String key);
+    // Returns the n-th word matching the query, 0 <= n < countMatching(command, key).
+    String getMatching(String command, String key, int n);
+
+    // Counts the words whose length is between minLength and maxLength (inclusive).
+    int countWithLength(int minLength, int maxLength);
+    // Returns the n-th word with a length in range, 0 <= n < countWithLength(minLength, maxLength).
+    String getWithLength(int minLength, int maxLength, int n);
+
+    /**
+     * Picks a random word matching a getRandomWord query.
+     * @return the word, or null if nothing matches
+     */
+    default String randomMatching(String command, String key, Random random) {
+        int count = countMatching(command, key);
+        return count == 0 ? null : getMatching(command, key, random.nextInt(count));
+    }
+
+    /**
+     * Picks a random word whose length is between minLength and maxLength (inclusive).
+     * @return the word, or null if no word has a length in that range
+     */
+    default String randomWithLength(int minLength, int maxLength, Random random) {
+        int count = countWithLength(minLength, maxLength);
+        return count == 0 ? null : getWithLength(minLength, maxLength, random.nextInt(count));
+    }
+
+    // Same test the indexes use, for words that are not part of one.
+    static boolean matches(String command, String key, String word) {
+        switch (command) {
+            case "m": return word.contains(key);
+            case "f": return word.startsWith(key);
+            case "e": return word.endsWith(key);
+            default: throw new IllegalArgumentException("Unknown command type: " + command);
+        }
+    }
+}
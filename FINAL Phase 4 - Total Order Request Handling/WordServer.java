@@ -20,10 +20,20 @@ public interface WordServer extends Remote {
     // 1. Filter words by minimum length.
     // adjusted for asg-specs
     String getRandomVertWord(int length) throws RemoteException;
+    // Same as above, with an upper bound on the length (inclusive).
+    String getRandomVertWord(int minLength, int maxLength) throws RemoteException;
+    // Same as above, picking with the given seed: the same seed and word list give the same word.
+    String getRandomVertWord(int minLength, int maxLength, long seed) throws RemoteException;
     
     // 2. Filter words using a command and letter (or substring).
     // m = contains
     // f = starts with
     // e = ends with
     String getRandomWord(String command, String letter) throws RemoteException;
+
+    // 3. Batch form of getRandomWord: one word per letter, fetched in a single call.
+    // Used by the puzzle server to get every horizontal word of a puzzle at once.
+    String[] getRandomWords(String command, String[] letters) throws RemoteException;
+    // Same as above, picking with the given seed.
+    String[] getRandomWords(String command, String[] letters, long seed) throws RemoteException;
 }
\ No newline at end of file
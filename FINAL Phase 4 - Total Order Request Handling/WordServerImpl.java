@@ -1,4 +1,3 @@
-
 /*
  * WordServerImpl
  * 
@@ -11,24 +10,30 @@ import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.rmi.Naming;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class WordServerImpl extends UnicastRemoteObject implements WordServer {
     private static final String FILE_PATH = "words.txt";
+    private static final String LOG_PATH = "words.log";
+    private static final String BINARY_PATH = "words.bin"; // Compiled by WordCompiler
+    private static final int COMPACT_AFTER_EDITS = 100; // Logged edits before words.txt is rewritten
+
+    // Loaded once at startup; replaced (never modified) when a word is added or removed.
+    private volatile EditedWordIndex index;
+    private final WordLog log;
+    private int loggedEdits; // Entries in words.log since words.txt was last rewritten
+    private boolean mapped; // Base index is words.bin rather than words.txt
 
     protected WordServerImpl() throws RemoteException {
         super();
-    }
-
-    @Override
-    public boolean checkWord(String word) throws RemoteException {
-        System.out.println("Checking word: " + word);
         try {
-            List<String> words = readWords();
-            if (words.contains(word)) {
-                return true;
-            } else {
-                return false;
+            log = new WordLog(LOG_PATH);
+            index = replay(new EditedWordIndex(loadWords()));
+            if (loggedEdits > 0) {
+                compact();
             }
         } catch (IOException e) {
             throw new RemoteException("File I/O error", e);
@@ -36,12 +41,20 @@ public class WordServerImpl extends UnicastRemoteObject implements WordServer {
     }
 
     @Override
-    public boolean removeWord(String word) throws RemoteException {
+    public boolean checkWord(String word) throws RemoteException {
+        System.out.println("Checking word: " + word);
+        return index.contains(word);
+    }
+
+    @Override
+    public synchronized boolean removeWord(String word) throws RemoteException {
         System.out.println("Removing word: " + word);
         try {
-            List<String> words = readWords();
-            if (words.remove(word)) {
-                writeWords(words);
+            if (index.contains(word)) {
+                log.append(WordLog.REMOVE, word);
+                loggedEdits++;
+                index = index.withRemoved(word);
+                compactIfNeeded();
                 return true;
             } else {
                 return false;
@@ -52,13 +65,14 @@ public class WordServerImpl extends UnicastRemoteObject implements WordServer {
     }
 
     @Override
-    public boolean createWord(String word) throws RemoteException {
+    public synchronized boolean createWord(String word) throws RemoteException {
         System.out.println("Adding word: " + word);
         try {
-            List<String> words = readWords();
-            if (!words.contains(word)) {
-                words.add(word);
-                writeWords(words);
+            if (!index.contains(word)) {
+                log.append(WordLog.ADD, word);
+                loggedEdits++;
+                index = index.withAdded(word);
+                compactIfNeeded();
                 return true;
             } else {
                 throw new RemoteException("Word already exists");
@@ -71,67 +85,76 @@ public class WordServerImpl extends UnicastRemoteObject implements WordServer {
     // Overloaded method: fetch a random word with a minimum length requirement.
     @Override
     public String getRandomVertWord(int length) throws RemoteException {
-        System.out.println("Fetching random word with minimum length: " + length);
-        try {
-            List<String> words = readWords();
-            List<String> matchedWords = new ArrayList<>();
-            for (String word : words) {
-                if (word.length() >= length) {
-                    matchedWords.add(word);
-                }
-            }
-            if (matchedWords.isEmpty()) {
-                throw new RemoteException("No words found with minimum length: " + length);
-            }
-            String selectedWord = matchedWords.get(new Random().nextInt(matchedWords.size()));
-            System.out.println("Fetched word: " + selectedWord);
-            return selectedWord;
-        } catch (IOException e) {
-            throw new RemoteException("File I/O error", e);
+        return getRandomVertWord(length, Integer.MAX_VALUE);
+    }
+
+    // Overloaded method: fetch a random word with a length between minLength and maxLength.
+    @Override
+    public String getRandomVertWord(int minLength, int maxLength) throws RemoteException {
+        return randomVertWord(minLength, maxLength, ThreadLocalRandom.current());
+    }
+
+    // Seeded form, so a puzzle can be generated again from its seed.
+    @Override
+    public String getRandomVertWord(int minLength, int maxLength, long seed) throws RemoteException {
+        return randomVertWord(minLength, maxLength, new Random(seed));
+    }
+
+    private String randomVertWord(int minLength, int maxLength, Random random) throws RemoteException {
+        System.out.println("Fetching random word with length: " + minLength + " - " + maxLength);
+        String selectedWord = index.randomWithLength(minLength, maxLength, random);
+        if (selectedWord == null) {
+            throw new RemoteException("No words found with length: " + minLength + " - " + maxLength);
         }
+        System.out.println("Fetched word: " + selectedWord);
+        return selectedWord;
     }
 
     // Overloaded method: fetch a random word based on a command and a letter (or substring).
     @Override
     public String getRandomWord(String command, String letter) throws RemoteException {
         System.out.println("Fetching random word with command: " + command + " and letter: " + letter);
-        try {
-            List<String> words = readWords();
-            List<String> matchedWords = new ArrayList<>();
-
-            switch (command) {
-                case "m":
-                    for (String word : words) {
-                        if (word.contains(letter)) {
-                            matchedWords.add(word);
-                        }
-                    }
-                    break;
-                case "f":
-                    for (String word : words) {
-                        if (word.startsWith(letter)) {
-                            matchedWords.add(word);
-                        }
-                    }
-                    break;
-                case "e":
-                    for (String word : words) {
-                        if (word.endsWith(letter)) {
-                            matchedWords.add(word);
-                        }
-                    }
-                    break;
-                default:
-                    throw new RemoteException("Unknown command type: " + command);
-            }
-            if (matchedWords.isEmpty()) {
-                throw new RemoteException("No words matched command '" + command + "' with argument '" + letter + "'");
+        checkCommand(command);
+        String selectedWord = index.randomMatching(command, letter, ThreadLocalRandom.current());
+        if (selectedWord == null) {
+            throw new RemoteException("No words matched command '" + command + "' with argument '" + letter + "'");
+        }
+        System.out.println("Fetched word: " + selectedWord);
+        return selectedWord;
+    }
+
+    // Batch method: fetch one random word per letter, all from the same snapshot of the word list.
+    @Override
+    public String[] getRandomWords(String command, String[] letters) throws RemoteException {
+        return randomWords(command, letters, ThreadLocalRandom.current());
+    }
+
+    // Seeded form, so a puzzle can be generated again from its seed.
+    @Override
+    public String[] getRandomWords(String command, String[] letters, long seed) throws RemoteException {
+        return randomWords(command, letters, new Random(seed));
+    }
+
+    private String[] randomWords(String command, String[] letters, Random random) throws RemoteException {
+        System.out.println("Fetching " + letters.length + " random words with command: " + command
+            + " and letters: " + Arrays.toString(letters));
+        checkCommand(command);
+        EditedWordIndex words = index;
+        String[] selectedWords = new String[letters.length];
+
+        for (int i = 0; i < letters.length; i++) {
+            selectedWords[i] = words.randomMatching(command, letters[i], random);
+            if (selectedWords[i] == null) {
+                throw new RemoteException("No words matched command '" + command + "' with argument '" + letters[i] + "'");
             }
-            String selectedWord = matchedWords.get(new Random().nextInt(matchedWords.size()));
-            System.out.println("Fetched word: " + selectedWord);
-            return selectedWord;
-        } catch (IOException e) {
-            throw new RemoteException("File I/O error", e);
+        }
+        System.out.println("Fetched words: " + Arrays.toString(selectedWords));
+        return selectedWords;
+    }
+
+    private void checkCommand(String command) throws RemoteException {
+        if (!command.equals("m") && !command.equals("f") && !command.equals("e")) {
+            throw new RemoteException("Unknown command type: " + command);
         }
     }
 
@@ -148,14 +171,82 @@ public class WordServerImpl extends UnicastRemoteObject implements WordServer {
         return words;
     }
 
-    // Writes the list of words back to the file.
+    // Maps words.bin if it is up to date, otherwise loads words.txt onto the heap.
+    private WordLookup loadWords() throws IOException {
+        File binary = new File(BINARY_PATH);
+        if (binary.exists() && binary.lastModified() >= new File(FILE_PATH).lastModified()) {
+            MappedWordIndex words = MappedWordIndex.open(BINARY_PATH);
+            mapped = true;
+            System.out.println("Mapped words from " + BINARY_PATH + ": " + words.size() + " words found.");
+            return words;
+        }
+        if (binary.exists()) {
+            System.out.println(BINARY_PATH + " is older than " + FILE_PATH + ", run WordCompiler to rebuild it.");
+        }
+        return new WordIndex(readWords());
+    }
+
+    // Applies the edits left in the log to the words read from the file.
+    private EditedWordIndex replay(EditedWordIndex words) throws IOException {
+        List<String> entries = log.readEntries();
+        loggedEdits = entries.size();
+        for (String entry : entries) {
+            String word = entry.substring(1);
+            if (entry.charAt(0) == WordLog.ADD && !words.contains(word)) {
+                words = words.withAdded(word);
+            } else if (entry.charAt(0) == WordLog.REMOVE && words.contains(word)) {
+                words = words.withRemoved(word);
+            }
+        }
+        if (!entries.isEmpty()) {
+            System.out.println("Replayed " + entries.size() + " edits from " + LOG_PATH);
+        }
+        return words;
+    }
+
+    // Counts log entries rather than index edits: adding and removing the same word
+    // cancels out in the index, but still grows the log.
+    private void compactIfNeeded() throws IOException {
+        if (loggedEdits >= COMPACT_AFTER_EDITS) {
+            compact();
+        }
+    }
+
+    // Folds the logged edits into a new words.txt (and words.bin) and index, then clears the log.
+    private void compact() throws IOException {
+        List<String> words = index.toList();
+        writeWords(words);
+        WordIndex rebuilt = new WordIndex(words);
+        WordLookup base = rebuilt;
+        if (mapped) {
+            try {
+                MappedWordIndex.write(rebuilt, BINARY_PATH);
+                base = MappedWordIndex.open(BINARY_PATH);
+            } catch (IOException e) {
+                // e.g. the old file is still mapped and cannot be replaced on this platform
+                System.err.println("Could not rewrite " + BINARY_PATH + ", keeping words in memory: " + e.getMessage());
+                mapped = false;
+            }
+        }
+        log.clear();
+        loggedEdits = 0;
+        index = new EditedWordIndex(base);
+    }
+
+    // Writes the list of words to a temporary file and swaps it in for words.txt.
     private void writeWords(List<String> words) throws IOException {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(FILE_PATH))) {
+        File target = new File(FILE_PATH);
+        File temp = new File(FILE_PATH + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temp);
+             BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(fos))) {
             for (String word : words) {
                 bw.write(word);
                 bw.newLine();
             }
+            bw.flush();
+            fos.getFD().sync();
         }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         System.out.println("Updated words.txt with " + words.size() + " words.");
     }
 
@@ -1,9 +1,23 @@
 package game;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public class Game implements java.io.Serializable{
+// Sent between players and servers over RMI in a hand-written format (see writeExternal):
+// only the guesses made so far, and the finished grid run-length encoded with Wire. The
+// player grid is not sent; it follows from the finished grid and the guesses, and is
+// rebuilt when the game is read.
+public class Game implements Externalizable {
+
+    private static final int FORMAT_VERSION = 2; // 1 also sent the player grid
 
     private String gameID;
     private String activePlayer;
@@ -11,19 +25,27 @@ public class Game implements java.io.Serializable{
     private int lives;
     private int totalLives;
     private String[] gameWords;
-    private char[] lettersGuessed;
-    private String[] wordsGuessed;
+    private List<Character> lettersGuessed = new ArrayList<>();
+    private List<String> wordsGuessed = new ArrayList<>();
+    private int guessedLetterMask;     // Bit n set once letter 'A' + n has been guessed
     private char[][] finishedGrid;
     private char[][] playerGrid;
-    private int lettersGuessedCount = 0;
-    private int wordsGuessedCount = 0;
-    private int maxlettersGuessed = 50;
-    private int maxwordsGuessed = 50;
     private String gameStatus;
     private boolean multiplayer;
     private int expectedPlayers;
     private List<String> playerNames = new ArrayList<>();
 
+    // Upper-case word -> where it sits in finishedGrid; null for games made without it
+    private Map<String, List<WordPlacement>> wordPlacements;
+
+    // Letter -> cells holding it (row * width + column), built from finishedGrid on first use
+    private transient Map<Character, int[]> letterCells;
+
+    // Cells of playerGrid already showing their letter, and how many are still hidden;
+    // derived from playerGrid on first use
+    private transient BitSet revealedCells;
+    private transient int hiddenCells;
+
     public Game(String gameID, int numWords, int totalLives, String[] gameWords, boolean multiplayer, int expectedPlayers) {
         this.gameID = gameID;
         this.numWords = numWords;
@@ -32,16 +54,20 @@ public class Game implements java.io.Serializable{
         this.gameWords = gameWords;
         this.multiplayer = multiplayer;
         this.expectedPlayers = expectedPlayers;
-        this.lettersGuessed = new char[maxlettersGuessed];
-        this.wordsGuessed = new String[maxwordsGuessed];
         this.finishedGrid = null;
         this.playerGrid = null;
         this.gameStatus = "Waiting";
     }
 
+    // For deserialization only
+    public Game() {
+    }
+
     public void initializeGrids(int height, int width) {
         this.finishedGrid = new char[height][width];
         this.playerGrid = new char[height][width];
+        this.letterCells = null;
+        this.revealedCells = null;
     }  
 
     // === Basic Getters/Setters ===
@@ -100,16 +126,27 @@ public class Game implements java.io.Serializable{
 
     public void setPlayerGrid(char[][] grid) {
         this.playerGrid = grid;
+        this.revealedCells = null;
     }
 
     public void setPlayerGridRow(int rowIndex, char[] row) {
         playerGrid[rowIndex] = row;
+        revealedCells = null;
     }
 
     public void setFinishedGridRow(int rowIndex, char[] row) {
+        letterCells = null;
         finishedGrid[rowIndex] = row;
     }
 
+    public Map<String, List<WordPlacement>> getWordPlacements() {
+        return wordPlacements;
+    }
+
+    public void setWordPlacements(Map<String, List<WordPlacement>> wordPlacements) {
+        this.wordPlacements = wordPlacements;
+    }
+
     public void setGameStatus(String status) {
         this.gameStatus = status;
     }
@@ -132,42 +169,34 @@ public class Game implements java.io.Serializable{
 
     // === Game Actions ===
     public boolean addGuessedLetter(char letter) {
-        if (lettersGuessedCount < maxlettersGuessed) {
-            lettersGuessed[lettersGuessedCount++] = letter;
-            return true;
+        lettersGuessed.add(letter);
+        char upper = Character.toUpperCase(letter);
+        if (upper >= 'A' && upper <= 'Z') {
+            guessedLetterMask |= 1 << (upper - 'A');
         }
-        return false;
+        return true;
     }
 
     public boolean addGuessedWord(String word) {
-        if (wordsGuessedCount < maxwordsGuessed) {
-            wordsGuessed[wordsGuessedCount++] = word;
-            return true;
-        }
-        return false;
+        wordsGuessed.add(word);
+        return true;
     }
 
     public char[] getLettersGuessed() {
-        char[] result = new char[lettersGuessedCount];
-        System.arraycopy(lettersGuessed, 0, result, 0, lettersGuessedCount);
+        char[] result = new char[lettersGuessed.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = lettersGuessed.get(i);
+        }
         return result;
     }
 
     public String[] getWordsGuessed() {
-        String[] result = new String[wordsGuessedCount];
-        System.arraycopy(wordsGuessed, 0, result, 0, wordsGuessedCount);
-        return result;
+        return wordsGuessed.toArray(new String[0]);
     }
 
     public boolean isPlayerGridComplete() {
-        for (int y = 0; y < playerGrid.length; y++) {
-            for (int x = 0; x < playerGrid[y].length; x++) {
-                if (playerGrid[y][x] == '-') {
-                    return false;
-                }
-            }
-        }
-        return true;
+        revealedCells();
+        return hiddenCells == 0;
     }
 
     public void displayGrid(String gridType) {
@@ -196,25 +225,29 @@ public class Game implements java.io.Serializable{
         }
     }
 
-    public String checkGuess(String guess, String playerName) {
+    public synchronized String checkGuess(String guess, String playerName) {
         //System.out.println("\nChecking guess: " + guess); for client
         boolean correctGuess = false;
 
+        // Grid from before incremental updates; bring it in line with the guesses so far
+        if (this.playerGrid == null) {
+            this.playerGrid = updateUserGrid();
+        }
+
+        // Reveal only the cells the guess uncovers, in place
         if (guess.length() == 1) {
             char guessedChar = Character.toUpperCase(guess.charAt(0));
             this.addGuessedLetter(guessedChar);
-            correctGuess = isLetterInGrid(guessedChar);
+            correctGuess = revealLetter(guessedChar);
         } else {
             String guessedWord = guess.toUpperCase();
             this.addGuessedWord(guessedWord);
-            correctGuess = isWordInGrid(guessedWord);
+            correctGuess = revealWord(guessedWord);
         }
         
         if (!correctGuess) {
             this.lives--;
         }
-        // Update playerGrid based on new guess
-        this.playerGrid = updateUserGrid();
 
         // Check win/loss state
         if (isPlayerGridComplete()) {
@@ -228,6 +261,88 @@ public class Game implements java.io.Serializable{
         return this.gameID;
     }
 
+    // Reveals every cell holding the letter; returns false if the letter is not in the grid.
+    private boolean revealLetter(char letter) {
+        int[] cells = letterCells().get(letter);
+        if (cells == null) {
+            return false;
+        }
+        int cols = finishedGrid[0].length;
+        for (int cell : cells) {
+            revealCell(cell / cols, cell % cols);
+        }
+        return true;
+    }
+
+    // Shows one cell of the finished grid in playerGrid, keeping the hidden count current.
+    private void revealCell(int y, int x) {
+        BitSet revealed = revealedCells();
+        int cell = y * finishedGrid[0].length + x;
+        if (!revealed.get(cell)) {
+            revealed.set(cell);
+            hiddenCells--;
+        }
+        playerGrid[y][x] = finishedGrid[y][x];
+    }
+
+    private BitSet revealedCells() {
+        if (revealedCells == null) {
+            int cols = finishedGrid[0].length;
+            BitSet revealed = new BitSet(playerGrid.length * cols);
+            int hidden = 0;
+            for (int y = 0; y < playerGrid.length; y++) {
+                for (int x = 0; x < cols; x++) {
+                    if (playerGrid[y][x] == '-') {
+                        hidden++;
+                    } else {
+                        revealed.set(y * cols + x);
+                    }
+                }
+            }
+            revealedCells = revealed;
+            hiddenCells = hidden;
+        }
+        return revealedCells;
+    }
+
+    private Map<Character, int[]> letterCells() {
+        if (letterCells == null) {
+            int cols = finishedGrid[0].length;
+            Map<Character, List<Integer>> positions = new HashMap<>();
+            for (int y = 0; y < finishedGrid.length; y++) {
+                for (int x = 0; x < cols; x++) {
+                    char cell = finishedGrid[y][x];
+                    if (cell != '.') {
+                        positions.computeIfAbsent(Character.toUpperCase(cell), k -> new ArrayList<>()).add(y * cols + x);
+                    }
+                }
+            }
+            Map<Character, int[]> cells = new HashMap<>();
+            for (Map.Entry<Character, List<Integer>> entry : positions.entrySet()) {
+                cells.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+            letterCells = cells;
+        }
+        return letterCells;
+    }
+
+    // Applies another player's move. The guess is replayed locally to reveal its cells,
+    // then checked against the lives the sender ended up with. Every move the sender had
+    // seen was applied here before this one, so the sender can only have more lives, by the
+    // moves made here that it had not seen yet. Fewer means this copy missed a move, and the
+    // sender's count is taken. A finished game (WIN or LOSE) on the sender's side finishes
+    // it here too.
+    public synchronized void applyMove(GameMove move) {
+        checkGuess(move.getGuess(), move.getPlayer());
+        if (move.getLives() < this.lives) {
+            this.lives = move.getLives();
+        }
+        if ("WIN".equals(move.getStatus()) || "LOSE".equals(move.getStatus())) {
+            this.gameStatus = move.getStatus();
+        }
+    }
+
+    // Rebuilds the whole player grid from the guesses so far.
     public char[][] updateUserGrid() {
         int rows = finishedGrid.length;
         int cols = finishedGrid[0].length;
@@ -250,38 +365,75 @@ public class Game implements java.io.Serializable{
     }
 
     private void revealWords(char[][] maskedGrid) {
-        int rows = finishedGrid.length;
-        int cols = finishedGrid[0].length;
-
-        for (int i = 0; i < wordsGuessedCount; i++) {
-            String word = wordsGuessed[i];
+        for (String word : wordsGuessed) {
             if (word == null || word.isEmpty()) continue;
 
             word = word.toUpperCase();
-
-            // Horizontal
-            for (int y = 0; y < rows; y++) {
-                String rowString = new String(finishedGrid[y]).toUpperCase();
-                int index = rowString.indexOf(word);
-                while (index != -1) {
-                    revealWordInRow(maskedGrid, finishedGrid, y, index, word.length());
-                    index = rowString.indexOf(word, index + 1);
+            if (wordPlacements != null) {
+                for (WordPlacement placement : wordPlacements.getOrDefault(word, List.of())) {
+                    placement.reveal(finishedGrid, maskedGrid);
                 }
+            } else {
+                revealWordAnywhere(maskedGrid, word);
             }
+        }
+    }
 
-            // Vertical
-            for (int x = 0; x < cols; x++) {
-                StringBuilder colBuilder = new StringBuilder();
-                for (int y = 0; y < rows; y++) {
-                    colBuilder.append(finishedGrid[y][x]);
+    // Reveals the word's cells in playerGrid; returns false if the word is not in the grid.
+    private boolean revealWord(String word) {
+        if (wordPlacements != null) {
+            List<WordPlacement> placements = wordPlacements.get(word);
+            if (placements == null) {
+                return false;
+            }
+            for (WordPlacement placement : placements) {
+                for (int i = 0; i < placement.getLength(); i++) {
+                    if (placement.isHorizontal()) {
+                        revealCell(placement.getRow(), placement.getCol() + i);
+                    } else {
+                        revealCell(placement.getRow() + i, placement.getCol());
+                    }
                 }
-                String colString = colBuilder.toString().toUpperCase();
+            }
+            return true;
+        }
 
-                int index = colString.indexOf(word);
-                while (index != -1) {
-                    revealWordInColumn(maskedGrid, finishedGrid, x, index, word.length());
-                    index = colString.indexOf(word, index + 1);
-                }
+        // No placement table: search the rows and columns
+        if (!isWordInGrid(word)) {
+            return false;
+        }
+        revealWordAnywhere(playerGrid, word);
+        revealedCells = null; // Recounted on next use
+        return true;
+    }
+
+    // Reveals every place the word appears, across or down.
+    private void revealWordAnywhere(char[][] maskedGrid, String word) {
+        int rows = finishedGrid.length;
+        int cols = finishedGrid[0].length;
+
+        // Horizontal
+        for (int y = 0; y < rows; y++) {
+            String rowString = new String(finishedGrid[y]).toUpperCase();
+            int index = rowString.indexOf(word);
+            while (index != -1) {
+                revealWordInRow(maskedGrid, finishedGrid, y, index, word.length());
+                index = rowString.indexOf(word, index + 1);
+            }
+        }
+
+        // Vertical
+        for (int x = 0; x < cols; x++) {
+            StringBuilder colBuilder = new StringBuilder();
+            for (int y = 0; y < rows; y++) {
+                colBuilder.append(finishedGrid[y][x]);
+            }
+            String colString = colBuilder.toString().toUpperCase();
+
+            int index = colString.indexOf(word);
+            while (index != -1) {
+                revealWordInColumn(maskedGrid, finishedGrid, x, index, word.length());
+                index = colString.indexOf(word, index + 1);
             }
         }
     }
@@ -299,15 +451,12 @@ public class Game implements java.io.Serializable{
     }
 
     private boolean isGuessedLetter(char letter) {
-        if (lettersGuessed == null) return false;
-
         letter = Character.toUpperCase(letter);
-        for (int i = 0; i < lettersGuessedCount; i++) {
-            if (lettersGuessed[i] == letter) {
-                return true;
-            }
+        if (letter >= 'A' && letter <= 'Z') {
+            return (guessedLetterMask & (1 << (letter - 'A'))) != 0;
         }
-        return false;
+        // Punctuation and accented letters are rare enough to look up in the list
+        return lettersGuessed.contains(letter);
     }
     private boolean isWordInGrid(String word) {
         int rows = finishedGrid.length;
@@ -330,14 +479,84 @@ public class Game implements java.io.Serializable{
     
         return false;
     }
-    private boolean isLetterInGrid(char letter) {
-        for (char[] row : finishedGrid) {
-            for (char cell : row) {
-                if (Character.toUpperCase(cell) == letter) {
-                    return true;
+
+    // === Serialization ===
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        Wire.writeString(out, gameID);
+        Wire.writeString(out, activePlayer);
+        out.writeInt(numWords);
+        out.writeInt(lives);
+        out.writeInt(totalLives);
+        Wire.writeStrings(out, gameWords);
+        out.writeUTF(new String(getLettersGuessed()));
+        Wire.writeStrings(out, getWordsGuessed());
+        Wire.writeGrid(out, finishedGrid);
+        Wire.writeString(out, gameStatus);
+        out.writeBoolean(multiplayer);
+        out.writeInt(expectedPlayers);
+        Wire.writeStrings(out, getNamesOfPlayers());
+
+        out.writeInt(wordPlacements == null ? -1 : wordPlacements.size());
+        if (wordPlacements != null) {
+            for (Map.Entry<String, List<WordPlacement>> entry : wordPlacements.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeByte(entry.getValue().size());
+                for (WordPlacement placement : entry.getValue()) {
+                    out.writeByte(placement.getRow());
+                    out.writeByte(placement.getCol());
+                    out.writeBoolean(placement.isHorizontal());
+                    out.writeByte(placement.getLength());
                 }
             }
         }
-        return false;
     }
-}
\ No newline at end of file
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION && version != 1) {
+            throw new InvalidClassException(Game.class.getName(), "Unknown format version " + version);
+        }
+        gameID = Wire.readString(in);
+        activePlayer = Wire.readString(in);
+        numWords = in.readInt();
+        lives = in.readInt();
+        totalLives = in.readInt();
+        gameWords = Wire.readStrings(in);
+        for (char letter : in.readUTF().toCharArray()) {
+            addGuessedLetter(letter);
+        }
+        for (String word : Wire.readStrings(in)) {
+            addGuessedWord(word);
+        }
+        finishedGrid = Wire.readGrid(in);
+        if (version == 1) {
+            Wire.readGrid(in); // Rebuilt below like any other
+        }
+        gameStatus = Wire.readString(in);
+        multiplayer = in.readBoolean();
+        expectedPlayers = in.readInt();
+        for (String name : Wire.readStrings(in)) {
+            playerNames.add(name);
+        }
+
+        int words = in.readInt();
+        if (words >= 0) {
+            wordPlacements = new HashMap<>();
+            for (int i = 0; i < words; i++) {
+                String word = in.readUTF();
+                int count = in.readUnsignedByte();
+                for (int j = 0; j < count; j++) {
+                    WordPlacement.add(wordPlacements, word, new WordPlacement(
+                        in.readUnsignedByte(), in.readUnsignedByte(), in.readBoolean(), in.readUnsignedByte()));
+                }
+            }
+        }
+
+        if (finishedGrid != null && finishedGrid.length > 0) {
+            playerGrid = updateUserGrid();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package game;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+// One guess made in a multiplayer game, as broadcast to the other players.
+// Each receiver applies it to its own copy of the Game with Game.applyMove, so only the
+// guess travels instead of the whole game. lives and status are the result the sender saw;
+// a receiver with more lives than the sender takes the sender's count.
+// A move is ordered either by its Lamport timestamp or, when a sequencer is used, by the
+// sequence number the sequencer gave it (0 until then).
+// Written field by field (Externalizable), without class descriptors; moves are never
+// changed after they are made.
+public class GameMove implements Externalizable {
+
+    private String gameID;
+    private String player;
+    private String guess;
+    private int timestamp;   // Lamport timestamp, set by the sending receiver
+    private int sequence;    // Position in the game's move order, set by the sequencer
+    private int lives;
+    private String status;
+
+    // For deserialization only
+    public GameMove() {
+    }
+
+    public GameMove(String gameID, String player, String guess, int lives, String status) {
+        this(gameID, player, guess, 0, 0, lives, status);
+    }
+
+    private GameMove(String gameID, String player, String guess, int timestamp, int sequence, int lives, String status) {
+        this.gameID = gameID;
+        this.player = player;
+        this.guess = guess;
+        this.timestamp = timestamp;
+        this.sequence = sequence;
+        this.lives = lives;
+        this.status = status;
+    }
+
+    // Returns a copy of this move carrying the given Lamport timestamp.
+    public GameMove stamped(int timestamp) {
+        return new GameMove(gameID, player, guess, timestamp, sequence, lives, status);
+    }
+
+    // Returns a copy of this move carrying the given sequence number.
+    public GameMove sequenced(int sequence) {
+        return new GameMove(gameID, player, guess, timestamp, sequence, lives, status);
+    }
+
+    public String getGameID() {
+        return gameID;
+    }
+
+    public String getPlayer() {
+        return player;
+    }
+
+    public String getGuess() {
+        return guess;
+    }
+
+    public int getTimestamp() {
+        return timestamp;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        Wire.writeString(out, gameID);
+        Wire.writeString(out, player);
+        Wire.writeString(out, guess);
+        out.writeInt(timestamp);
+        out.writeInt(sequence);
+        out.writeInt(lives);
+        Wire.writeString(out, status);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        gameID = Wire.readString(in);
+        player = Wire.readString(in);
+        guess = Wire.readString(in);
+        timestamp = in.readInt();
+        sequence = in.readInt();
+        lives = in.readInt();
+        status = Wire.readString(in);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + player + (sequence > 0 ? " #" + sequence : " @ " + timestamp) + "] " + guess;
+    }
+}
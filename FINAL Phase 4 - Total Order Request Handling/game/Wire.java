@@ -0,0 +1,112 @@
+package game;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+// Helpers for the hand-written (Externalizable) formats of Game, GameMove and the
+// receiver's messages.
+//
+// Strings are a presence flag, then writeUTF. String arrays are the length (-1 for null),
+// then each string.
+//
+// Grids are the height and width as shorts (height -1 for a null grid), then the cells
+// row by row, running on from one row to the next:
+// - a '.' or '-' cell starts a run: that character's byte, then how many times it repeats
+//   (1 to 255), so a row of blanks costs two bytes;
+// - any other character below 0x80 is its own byte;
+// - a character of 0x80 or above is an ESCAPE byte (0xFF), then the character in two bytes.
+public final class Wire {
+
+    private static final int ESCAPE = 0xFF;
+    private static final int MAX_RUN = 255;
+
+    private Wire() {
+    }
+
+    public static void writeString(ObjectOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    public static String readString(ObjectInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    public static void writeStrings(ObjectOutput out, String[] values) throws IOException {
+        out.writeInt(values == null ? -1 : values.length);
+        if (values != null) {
+            for (String value : values) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    public static String[] readStrings(ObjectInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+
+        String[] values = new String[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = readString(in);
+        }
+        return values;
+    }
+
+    public static void writeGrid(ObjectOutput out, char[][] grid) throws IOException {
+        if (grid == null) {
+            out.writeShort(-1);
+            return;
+        }
+        int height = grid.length;
+        int width = (height == 0) ? 0 : grid[0].length;
+        out.writeShort(height);
+        out.writeShort(width);
+
+        int cells = height * width;
+        for (int i = 0; i < cells; ) {
+            char c = grid[i / width][i % width];
+            if (c == '.' || c == '-') {
+                int run = 1;
+                while (i + run < cells && run < MAX_RUN && grid[(i + run) / width][(i + run) % width] == c) {
+                    run++;
+                }
+                out.writeByte(c);
+                out.writeByte(run);
+                i += run;
+                continue;
+            }
+            if (c < 0x80) {
+                out.writeByte(c);
+            } else {
+                out.writeByte(ESCAPE);
+                out.writeChar(c);
+            }
+            i++;
+        }
+    }
+
+    public static char[][] readGrid(ObjectInput in) throws IOException {
+        int height = in.readShort();
+        if (height < 0) return null;
+        int width = in.readShort();
+
+        char[][] grid = new char[height][width];
+        int cells = height * width;
+        for (int i = 0; i < cells; ) {
+            int b = in.readUnsignedByte();
+            if (b == '.' || b == '-') {
+                int run = in.readUnsignedByte();
+                for (int end = i + run; i < end; i++) {
+                    grid[i / width][i % width] = (char) b;
+                }
+                continue;
+            }
+            grid[i / width][i % width] = (b == ESCAPE) ? in.readChar() : (char) b;
+            i++;
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,57 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Where one word of a puzzle sits in the grid: its first cell, direction and length.
+public class WordPlacement implements java.io.Serializable {
+
+    private final int row;
+    private final int col;
+    private final boolean horizontal;
+    private final int length;
+
+    public WordPlacement(int row, int col, boolean horizontal, int length) {
+        this.row = row;
+        this.col = col;
+        this.horizontal = horizontal;
+        this.length = length;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public boolean isHorizontal() {
+        return horizontal;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    // Copies the word's cells from the full grid into the masked grid.
+    public void reveal(char[][] fullGrid, char[][] maskedGrid) {
+        for (int i = 0; i < length; i++) {
+            int y = horizontal ? row : row + i;
+            int x = horizontal ? col + i : col;
+            maskedGrid[y][x] = fullGrid[y][x];
+        }
+    }
+
+    // Adds a placement under the upper-case word, the form guesses are checked in.
+    // A word can be placed more than once in the same puzzle.
+    public static void add(Map<String, List<WordPlacement>> placements, String word, WordPlacement placement) {
+        placements.computeIfAbsent(word.toUpperCase(), k -> new ArrayList<>()).add(placement);
+    }
+
+    @Override
+    public String toString() {
+        return (horizontal ? "across" : "down") + " at (" + row + ", " + col + "), length " + length;
+    }
+}